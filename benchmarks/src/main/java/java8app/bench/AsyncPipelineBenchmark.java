@@ -0,0 +1,113 @@
+package java8app.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java8app.async.AsyncPipeline;
+import java8app.model.Hosting;
+
+// Enriching the hostings of convertListToMap() through a store that blocks for `latency`
+// microseconds per call: parallel().map(blockingCall) in the common pool, which blocks its
+// workers, against AsyncPipeline with one call per element and with one bulk call per batch.
+// The bulk call blocks once per batch, plus a microsecond per row.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncPipelineBenchmark {
+
+	@Param({"2000"})
+	public int size;
+
+	@Param({"100", "1000"})
+	public int latency;
+
+	@Param({"64"})
+	public int concurrency;
+
+	private List<Hosting> hostings;
+	private Store store;
+	private AsyncPipeline<Hosting, String> ordered;
+	private AsyncPipeline<Hosting, String> unordered;
+	private AsyncPipeline<Hosting, String> batched;
+
+	@Setup
+	public void setUp() {
+		hostings = BenchmarkData.hostings(size);
+		store = new Store(latency);
+		ordered = AsyncPipeline.<Hosting, String>map(store::lookup).batchSize(8).concurrency(concurrency).build();
+		unordered = AsyncPipeline.<Hosting, String>map(store::lookup).batchSize(8).concurrency(concurrency)
+				.unordered().build();
+		batched = AsyncPipeline.<Hosting, String>mapBatch(store::lookupAll).batchSize(64).concurrency(concurrency)
+				.build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		ordered.close();
+		unordered.close();
+		batched.close();
+	}
+
+	@Benchmark
+	public List<String> parallelStream() {
+		return hostings.parallelStream().map(store::lookup).collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<String> asyncOrdered() {
+		return ordered.collect(hostings.stream(), Collectors.toList());
+	}
+
+	@Benchmark
+	public List<String> asyncUnordered() {
+		return unordered.collect(hostings.stream(), Collectors.toList());
+	}
+
+	@Benchmark
+	public List<String> asyncBatched() {
+		return batched.collect(hostings.stream(), Collectors.toList());
+	}
+
+	// Stands in for a slow local store; parking keeps the latency without burning a core.
+	static final class Store {
+
+		private final long nanos;
+
+		Store(int latencyMicros) {
+			this.nanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+		}
+
+		String lookup(Hosting hosting) {
+			LockSupport.parkNanos(nanos);
+			return hosting.getName() + "#" + hosting.getId();
+		}
+
+		List<String> lookupAll(List<Hosting> batch) {
+			LockSupport.parkNanos(nanos + TimeUnit.MICROSECONDS.toNanos(batch.size()));
+			List<String> out = new ArrayList<>(batch.size());
+			for (Hosting hosting : batch) {
+				out.add(hosting.getName() + "#" + hosting.getId());
+			}
+			return out;
+		}
+	}
+}
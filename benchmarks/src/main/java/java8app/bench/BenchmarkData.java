@@ -0,0 +1,91 @@
+package java8app.bench;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import java8app.model.Hosting;
+import java8app.model.Item;
+import java8app.model.Person;
+import java8app.model.Student;
+
+// Seeded inputs shaped like the literals in Java8Examples, scaled up to the benchmark size.
+final class BenchmarkData {
+
+	static final long SEED = 42L;
+
+	static final String[] FRUITS = {"apple", "banana", "orange", "watermelon", "papaya",
+			"mango", "kiwi", "cherry", "grape", "lemon", "lime", "peach", "pear", "plum"};
+	static final String[] STATES = {"Texas", "California", "New York", "Washington", "Florida",
+			"Illinois", "Ohio", "Georgia"};
+	static final String[] NAMES = {"mkyong", "michael", "lawrence", "timothy", "adriana",
+			"lavatno", "andrey", "zilap"};
+	static final double[] PRICES = {9.99, 19.99, 29.99, 39.99};
+
+	private BenchmarkData() {
+	}
+
+	static String[] fruits(int size) {
+		Random random = new Random(SEED);
+		String[] data = new String[size];
+		for (int i = 0; i < size; i++) {
+			data[i] = FRUITS[random.nextInt(FRUITS.length)];
+		}
+		return data;
+	}
+
+	static Map<String, Integer> unsortedMap(int size) {
+		Random random = new Random(SEED);
+		Map<String, Integer> map = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			map.put("k" + i, random.nextInt(size));
+		}
+		return map;
+	}
+
+	static Item[] items(int size) {
+		Random random = new Random(SEED);
+		Item[] items = new Item[size];
+		for (int i = 0; i < size; i++) {
+			items[i] = new Item(FRUITS[random.nextInt(FRUITS.length)], 10 * (1 + random.nextInt(3)),
+					PRICES[random.nextInt(PRICES.length)]);
+		}
+		return items;
+	}
+
+	static List<Person> persons(int size) {
+		Random random = new Random(SEED);
+		List<Person> persons = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			int state = random.nextInt(STATES.length);
+			persons.add(new Person(NAMES[random.nextInt(NAMES.length)] + (i % 1000), random.nextInt(90),
+					STATES[state], STATES[state] + " city " + random.nextInt(16)));
+		}
+		return persons;
+	}
+
+	static List<Hosting> hostings(int size) {
+		Date now = new Date(0L);
+		List<Hosting> list = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			list.add(new Hosting(i + 1, "host" + i + ".com", now));
+		}
+		return list;
+	}
+
+	static List<Student> students(int size) {
+		Random random = new Random(SEED);
+		List<Student> list = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Student student = new Student("student" + i);
+			for (int b = 0; b < 3; b++) {
+				student.addBook("Book " + random.nextInt(Math.max(1, size / 4)));
+			}
+			list.add(student);
+		}
+		return list;
+	}
+}
@@ -0,0 +1,76 @@
+package java8app.bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java8app.index.BiIndexedMap;
+import java8app.index.EntryFilter;
+import java8app.model.Hosting;
+
+// The lookups of filteringAMap(): entry-set scans against BiIndexedMap's forward and inverse
+// indexes.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BiIndexedMapBenchmark {
+
+	@Param({"1000", "1000000"})
+	public int size;
+
+	private Map<Integer, String> hosting;
+	private BiIndexedMap<Integer, String> indexed;
+	private String value;
+	private Integer key;
+
+	@Setup
+	public void setUp() {
+		hosting = BenchmarkData.hostings(size).stream().collect(Collectors.toMap(Hosting::getId, Hosting::getName));
+		indexed = new BiIndexedMap<>(hosting);
+		key = size / 2;
+		value = hosting.get(key);
+	}
+
+	@Benchmark
+	public String scanByValue() {
+		return hosting.entrySet().stream()
+				.filter(entry -> value.equals(entry.getValue()))
+				.map(entry -> entry.getValue())
+				.collect(Collectors.joining());
+	}
+
+	@Benchmark
+	public String inverseByValue() {
+		return indexed.filter(EntryFilter.valueIs(value))
+				.map(entry -> entry.getValue())
+				.collect(Collectors.joining());
+	}
+
+	@Benchmark
+	public Map<Integer, String> scanByKey() {
+		return hosting.entrySet().stream()
+				.filter(entry -> entry.getKey().equals(key))
+				.collect(Collectors.toMap(entry -> entry.getKey(), entry -> entry.getValue()));
+	}
+
+	@Benchmark
+	public Map<Integer, String> forwardByKey() {
+		return indexed.filter(EntryFilter.keyIs(key))
+				.collect(Collectors.toMap(entry -> entry.getKey(), entry -> entry.getValue()));
+	}
+}
@@ -0,0 +1,77 @@
+package java8app.bench;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java8app.columnar.ColumnarItemTable;
+import java8app.model.Item;
+
+// Item[] with Collectors against the columnar table, for the queries of
+// groupCountMappingOnStreams(). The setup prints the footprint of both forms next to the
+// timings: ColumnarItemTable.heapBytes() for the table, and for the array an Item of a 16-byte
+// header, 4 + 8 bytes of fields and a name reference, padded to 40 bytes, plus its array slot
+// and each distinct name string once.
+public class ColumnarItemBenchmark extends StreamBenchmark {
+
+	private Item[] items;
+	private ColumnarItemTable table;
+
+	@Override
+	protected void setUp() {
+		items = BenchmarkData.items(size);
+		table = ColumnarItemTable.of(items);
+		System.out.printf("# Heap footprint of %,d items: Item[] %,d bytes, columnar %,d bytes%n",
+				size, heapBytes(items), table.heapBytes());
+	}
+
+	static long heapBytes(Item[] items) {
+		long bytes = 16 + 8L * items.length + 40L * items.length;
+		Set<String> names = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Item item : items) {
+			if (names.add(item.getName())) {
+				bytes += 40 + 2L * item.getName().length();
+			}
+		}
+		return bytes;
+	}
+
+	@Benchmark
+	public Map<String, Integer> objectsSumQtyByName() {
+		return run(() -> mode(Arrays.stream(items))
+				.collect(Collectors.groupingBy(Item::getName, Collectors.summingInt(Item::getQty))));
+	}
+
+	@Benchmark
+	public Map<String, Integer> columnarSumQtyByName() {
+		return run(() -> table.sumQtyByName(parallel()));
+	}
+
+	@Benchmark
+	public Map<String, Double> objectsAveragePricePerQty() {
+		return run(() -> mode(Arrays.stream(items))
+				.collect(Collectors.groupingBy(Item::getName, Collectors.averagingDouble(item -> item.getPrice() / item.getQty()))));
+	}
+
+	@Benchmark
+	public Map<String, Double> columnarAveragePricePerQty() {
+		return run(() -> table.averagePricePerQtyByName(parallel()));
+	}
+
+	@Benchmark
+	public Map<Boolean, Set<String>> objectsPartitionByPrice() {
+		return run(() -> mode(Arrays.stream(items))
+				.collect(Collectors.partitioningBy(item -> item.getPrice() > 19.99,
+						Collectors.mapping(Item::getName, Collectors.toSet()))));
+	}
+
+	@Benchmark
+	public Map<Boolean, Set<String>> columnarPartitionByPrice() {
+		return run(() -> table.partitionNamesByPrice(19.99, parallel()));
+	}
+}
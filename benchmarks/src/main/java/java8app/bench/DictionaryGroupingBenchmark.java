@@ -0,0 +1,125 @@
+package java8app.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java8app.dictionary.DictionaryCollectors;
+import java8app.dictionary.EncodedItem;
+import java8app.dictionary.EncodedPerson;
+import java8app.dictionary.StringDictionary;
+import java8app.model.Item;
+import java8app.model.Person;
+
+// The groupings of groupingByOnStreams() and groupingAndSortingOnStream() on string keys and
+// on StringDictionary codes. The string records hold their own copy of each key, as they would
+// after parsing, so the hash map lookups compare distinct instances. The gc profiler's
+// alloc.rate.norm of the ingest benchmarks is the retained size of the built records: an Item
+// with its own name string against an EncodedItem with a code.
+public class DictionaryGroupingBenchmark extends StreamBenchmark {
+
+	private List<Person> persons;
+	private List<EncodedPerson> encodedPersons;
+	private Item[] items;
+	private EncodedItem[] encodedItems;
+	// One dictionary per column, so the state groupings index arrays of 8 and not of every key.
+	private StringDictionary states;
+	private StringDictionary cities;
+	private StringDictionary names;
+
+	@Override
+	protected void setUp() {
+		states = new StringDictionary();
+		cities = new StringDictionary();
+		names = new StringDictionary();
+		persons = new ArrayList<>(size);
+		encodedPersons = new ArrayList<>(size);
+		for (Person person : BenchmarkData.persons(size)) {
+			persons.add(new Person(person.getName(), person.getAge(), new String(person.getState()),
+					new String(person.getCity())));
+			encodedPersons.add(EncodedPerson.encode(person, states, cities));
+		}
+		items = BenchmarkData.items(size);
+		encodedItems = new EncodedItem[size];
+		for (int i = 0; i < size; i++) {
+			Item item = items[i];
+			items[i] = new Item(new String(item.getName()), item.getQty(), item.getPrice());
+			encodedItems[i] = EncodedItem.encode(item, names);
+		}
+	}
+
+	@Benchmark
+	public Map<String, Long> cityCountStrings() {
+		return run(() -> mode(persons.stream()).collect(Collectors.groupingBy(Person::getCity, Collectors.counting())));
+	}
+
+	@Benchmark
+	public Map<String, Long> cityCountCodes() {
+		return run(() -> mode(encodedPersons.stream())
+				.collect(DictionaryCollectors.counting(cities, EncodedPerson::getCity)));
+	}
+
+	@Benchmark
+	public Map<String, Map<String, List<Person>>> stateCityStrings() {
+		return run(() -> mode(persons.stream())
+				.collect(Collectors.groupingBy(Person::getState, Collectors.groupingBy(Person::getCity))));
+	}
+
+	@Benchmark
+	public Map<String, Map<String, List<EncodedPerson>>> stateCityCodes() {
+		return run(() -> mode(encodedPersons.stream()).collect(DictionaryCollectors.groupingBy(states,
+				EncodedPerson::getState, DictionaryCollectors.groupingBy(cities, EncodedPerson::getCity))));
+	}
+
+	@Benchmark
+	public Map<String, Long> sortedByCountStrings() {
+		return run(() -> {
+			Map<String, Long> counts = mode(Arrays.stream(items))
+					.collect(Collectors.groupingBy(Item::getName, Collectors.counting()));
+			Map<String, Long> sorted = new LinkedHashMap<>();
+			counts.entrySet().stream()
+				.sorted(Map.Entry.<String, Long>comparingByValue()
+						.reversed().thenComparing(Map.Entry.<String, Long>comparingByKey()))
+				.forEachOrdered(entry -> sorted.put(entry.getKey(), entry.getValue()));
+			return sorted;
+		});
+	}
+
+	@Benchmark
+	public Map<String, Long> sortedByCountCodes() {
+		return run(() -> mode(Arrays.stream(encodedItems))
+				.collect(DictionaryCollectors.countingSortedByCount(names, EncodedItem::getName)));
+	}
+
+	@Benchmark
+	public Map<String, Integer> qtyByNameStrings() {
+		return run(() -> mode(Arrays.stream(items))
+				.collect(Collectors.groupingBy(Item::getName, Collectors.summingInt(Item::getQty))));
+	}
+
+	@Benchmark
+	public Map<String, Integer> qtyByNameCodes() {
+		return run(() -> mode(Arrays.stream(encodedItems))
+				.collect(DictionaryCollectors.summingInt(names, EncodedItem::getName, EncodedItem::getQty)));
+	}
+
+	@Benchmark
+	public Item[] ingestStrings() {
+		return run(() -> mode(Arrays.stream(items))
+				.map(item -> new Item(new String(item.getName()), item.getQty(), item.getPrice()))
+				.toArray(Item[]::new));
+	}
+
+	// Every name is already in the dictionary, so this is the lookup cost of encoding at ingest.
+	@Benchmark
+	public EncodedItem[] ingestEncoded() {
+		return run(() -> mode(Arrays.stream(items))
+				.map(item -> EncodedItem.encode(item, names))
+				.toArray(EncodedItem[]::new));
+	}
+}
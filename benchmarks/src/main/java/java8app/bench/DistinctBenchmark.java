@@ -0,0 +1,64 @@
+package java8app.bench;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java8app.collect.DistinctCollectors;
+import java8app.model.Student;
+
+// Unique book titles from flatMap(): ordered distinct(), the unordered sharded-set distinct,
+// and the HyperLogLog estimate when only the count is needed.
+public class DistinctBenchmark extends StreamBenchmark {
+
+	private List<Student> students;
+
+	@Override
+	protected void setUp() {
+		students = BenchmarkData.students(size);
+	}
+
+	@Benchmark
+	public List<String> orderedDistinct() {
+		return run(() -> mode(students.stream())
+				.map(x -> x.getBook())
+				.flatMap(x -> x.stream())
+				.distinct()
+				.collect(Collectors.toList()));
+	}
+
+	@Benchmark
+	public List<String> unorderedConcurrentDistinct() {
+		return run(() -> DistinctCollectors.distinct(mode(students.stream())
+				.map(x -> x.getBook())
+				.flatMap(x -> x.stream()))
+				.collect(Collectors.toList()));
+	}
+
+	@Benchmark
+	public Set<String> concurrentSet() {
+		return run(() -> mode(students.stream())
+				.map(x -> x.getBook())
+				.flatMap(x -> x.stream())
+				.collect(DistinctCollectors.toConcurrentSet()));
+	}
+
+	@Benchmark
+	public long exactDistinctCount() {
+		return run(() -> mode(students.stream())
+				.map(x -> x.getBook())
+				.flatMap(x -> x.stream())
+				.distinct()
+				.count());
+	}
+
+	@Benchmark
+	public long approxDistinctCount() {
+		return run(() -> mode(students.stream())
+				.map(x -> x.getBook())
+				.flatMap(x -> x.stream())
+				.collect(DistinctCollectors.approxDistinctCount(0.01)));
+	}
+}
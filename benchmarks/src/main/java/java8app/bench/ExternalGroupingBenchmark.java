@@ -0,0 +1,57 @@
+package java8app.bench;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java8app.collect.ExternalGrouping;
+import java8app.collect.ExternalGroups;
+import java8app.io.RecordCodecs;
+import java8app.model.Person;
+
+// groupingBy() against ExternalGrouping with a budget of 16 MB, which the large size exceeds
+// and spills to disk while the small size stays in memory. The external variants include
+// writing, reading back and deleting the spill files.
+public class ExternalGroupingBenchmark extends StreamBenchmark {
+
+	private static final long BUDGET = 16 << 20;
+
+	private List<Person> persons;
+
+	@Override
+	protected void setUp() {
+		persons = BenchmarkData.persons(size);
+	}
+
+	@Benchmark
+	public Map<String, List<Person>> groupingByCity() {
+		return run(() -> mode(persons.stream()).collect(Collectors.groupingBy(Person::getCity)));
+	}
+
+	@Benchmark
+	public Map<String, List<Person>> externalGroupingByCity() {
+		return run(() -> {
+			try (ExternalGroups<String, List<Person>> groups = mode(persons.stream())
+					.collect(ExternalGrouping.builder(RecordCodecs.PERSON).memoryBudget(BUDGET).groupingBy(Person::getCity))) {
+				return groups.toMap();
+			}
+		});
+	}
+
+	@Benchmark
+	public Map<String, Long> groupingByNameCounting() {
+		return run(() -> mode(persons.stream()).collect(Collectors.groupingBy(Person::getName, Collectors.counting())));
+	}
+
+	@Benchmark
+	public Map<String, Long> externalGroupingByNameCounting() {
+		return run(() -> {
+			try (ExternalGroups<String, Long> groups = mode(persons.stream()).collect(ExternalGrouping.builder(RecordCodecs.PERSON)
+					.memoryBudget(BUDGET).groupingBy(Person::getName, Collectors.counting()))) {
+				return groups.toMap();
+			}
+		});
+	}
+}
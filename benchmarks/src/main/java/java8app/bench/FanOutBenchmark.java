@@ -0,0 +1,65 @@
+package java8app.bench;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java8app.collect.FanOut;
+import java8app.model.Item;
+
+// The seven queries of groupCountMappingOnStreams() as seven traversals against one FanOut pass.
+public class FanOutBenchmark extends StreamBenchmark {
+
+	private Item[] items;
+
+	@Override
+	protected void setUp() {
+		items = BenchmarkData.items(size);
+	}
+
+	@Benchmark
+	public Object[] sevenTraversals() {
+		return run(() -> new Object[] {
+				mode(Arrays.stream(items)).collect(Collectors.groupingBy(Item::getName, Collectors.counting())),
+				mode(Arrays.stream(items)).collect(Collectors.groupingBy(Item::getName, Collectors.summingInt(Item::getQty))),
+				mode(Arrays.stream(items)).collect(Collectors.groupingBy(Item::getName,
+						Collectors.averagingDouble(item -> item.getPrice() / item.getQty()))),
+				mode(Arrays.stream(items)).collect(Collectors.groupingBy(Item::getPrice)),
+				mode(Arrays.stream(items)).collect(Collectors.groupingBy(Item::getPrice,
+						Collectors.mapping(Item::getName, Collectors.toSet()))),
+				mode(Arrays.stream(items)).collect(Collectors.groupingBy(Item::getPrice,
+						Collectors.mapping(Item::getName, Collectors.toCollection(HashSet::new)))),
+				mode(Arrays.stream(items)).collect(Collectors.partitioningBy(item -> item.getPrice() > 19.99,
+						Collectors.mapping(Item::getName, Collectors.toSet())))});
+	}
+
+	@Benchmark
+	public FanOut.Results oneTraversal() {
+		FanOut.Builder<Item> queries = FanOut.builder();
+		queries.add(Collectors.groupingBy(Item::getName, Collectors.counting()));
+		queries.add(Collectors.groupingBy(Item::getName, Collectors.summingInt(Item::getQty)));
+		queries.add(Collectors.groupingBy(Item::getName, Collectors.averagingDouble(item -> item.getPrice() / item.getQty())));
+		queries.add(Collectors.<Item, Double>groupingBy(Item::getPrice));
+		queries.add(Collectors.groupingBy(Item::getPrice, Collectors.mapping(Item::getName, Collectors.toSet())));
+		queries.add(Collectors.groupingBy(Item::getPrice, Collectors.mapping(Item::getName, Collectors.toCollection(HashSet::new))));
+		queries.add(Collectors.partitioningBy(item -> item.getPrice() > 19.99, Collectors.mapping(Item::getName, Collectors.toSet())));
+		return run(() -> mode(Arrays.stream(items)).collect(queries.build()));
+	}
+
+	// Keeps the typed handles in use so the API shape is exercised the way callers write it.
+	@Benchmark
+	public int oneTraversalTyped() {
+		FanOut.Builder<Item> queries = FanOut.builder();
+		FanOut.Handle<Map<String, Long>> counts = queries.add(Collectors.groupingBy(Item::getName, Collectors.counting()));
+		FanOut.Handle<Map<Double, List<Item>>> byPrice = queries.add(Collectors.groupingBy(Item::getPrice));
+		FanOut.Handle<Map<Boolean, Set<String>>> expensive = queries.add(Collectors.partitioningBy(
+				item -> item.getPrice() > 19.99, Collectors.mapping(Item::getName, Collectors.toSet())));
+		FanOut.Results results = run(() -> mode(Arrays.stream(items)).collect(queries.build()));
+		return results.get(counts).size() + results.get(byPrice).size() + results.get(expensive).size();
+	}
+}
@@ -0,0 +1,53 @@
+package java8app.bench;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java8app.model.Person;
+
+// Pipelines from filteringAStream() and convertStreamToList(). The looked-up name is absent,
+// so findAny() has to scan the whole input as it does when there is no match.
+public class FilterBenchmark extends StreamBenchmark {
+
+	private List<Person> persons;
+	private List<String> lines;
+
+	@Override
+	protected void setUp() {
+		persons = BenchmarkData.persons(size);
+		lines = persons.stream().map(Person::getName).collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<String> filterNotEqualsCollect() {
+		return run(() -> mode(lines.stream())
+				.filter(line -> !"mkyong0".equals(line))
+				.collect(Collectors.toList()));
+	}
+
+	@Benchmark
+	public Person findAnyByName() {
+		return run(() -> mode(persons.stream())
+				.filter(x -> "michael".equals(x.getName()))
+				.findAny()
+				.orElse(null));
+	}
+
+	@Benchmark
+	public Person findAnyByNameAndAge() {
+		return run(() -> mode(persons.stream())
+				.filter(x -> "michael".equals(x.getName()) && 21 == x.getAge())
+				.findAny()
+				.orElse(null));
+	}
+
+	@Benchmark
+	public Optional<Person> maxByAge() {
+		return run(() -> mode(persons.stream())
+				.collect(Collectors.maxBy(Comparator.comparing(Person::getAge))));
+	}
+}
@@ -0,0 +1,28 @@
+package java8app.bench;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java8app.model.Student;
+
+// Pipeline from flatMap(): unique book titles across all students.
+public class FlatMapBenchmark extends StreamBenchmark {
+
+	private List<Student> students;
+
+	@Override
+	protected void setUp() {
+		students = BenchmarkData.students(size);
+	}
+
+	@Benchmark
+	public List<String> flatMapDistinct() {
+		return run(() -> mode(students.stream())
+				.map(x -> x.getBook())
+				.flatMap(x -> x.stream())
+				.distinct()
+				.collect(Collectors.toList()));
+	}
+}
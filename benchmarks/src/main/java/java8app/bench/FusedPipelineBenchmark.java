@@ -0,0 +1,124 @@
+package java8app.bench;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java8app.model.Person;
+import java8app.stream.CompiledPipeline;
+import java8app.stream.Pipeline;
+
+// The filter -> map -> collect shapes of filteringAStream() and convertMaptToList() as stream
+// pipelines and as compiled fused kernels. Setup first runs a few other pipelines through both,
+// so that the stream stages see several lambdas, as they do in an application. The kernels are
+// sequential, so there is no parallelism parameter; the small size shows per-call overhead.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FusedPipelineBenchmark {
+
+	private static final CompiledPipeline<Person, String> NAMES_OF_ADULTS = Pipeline.<Person>start()
+			.filter(person -> person.getAge() >= 18)
+			.map(Person::getName)
+			.compile();
+	private static final CompiledPipeline<Person, Person> TEXANS = Pipeline.<Person>start()
+			.filter(person -> "Texas".equals(person.getState()))
+			.compile();
+	private static final CompiledPipeline<Map.Entry<String, Integer>, String> KEYS = Pipeline.<Map.Entry<String, Integer>>start()
+			.map(Map.Entry::getKey)
+			.compile();
+
+	@Param({"10", "1000", "1000000"})
+	public int size;
+
+	private List<Person> persons;
+	private Map<String, Integer> map;
+	private String last;
+	private CompiledPipeline<Person, Person> named;
+
+	@Setup
+	public void setUp() {
+		persons = BenchmarkData.persons(size);
+		map = BenchmarkData.unsortedMap(size);
+		last = persons.get(persons.size() - 1).getName();
+		named = Pipeline.<Person>start().filter(person -> last.equals(person.getName())).compile();
+
+		CompiledPipeline<Person, String> cities = Pipeline.<Person>start()
+				.filter(person -> person.getAge() < 30)
+				.map(Person::getCity)
+				.compile();
+		int rounds = Math.max(3, 20_000_000 / size / 1000);
+		for (int i = 0; i < rounds; i++) {
+			persons.stream().filter(person -> person.getAge() < 30).map(Person::getCity).collect(Collectors.toList());
+			persons.stream().filter(person -> person.getName().length() > 8).map(Person::getAge).collect(Collectors.toList());
+			map.entrySet().stream().map(Map.Entry::getValue).collect(Collectors.toList());
+			cities.toList(persons);
+		}
+	}
+
+	@Benchmark
+	public List<String> streamFilterMap() {
+		return persons.stream()
+				.filter(person -> person.getAge() >= 18)
+				.map(Person::getName)
+				.collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<String> fusedFilterMap() {
+		return NAMES_OF_ADULTS.toList(persons);
+	}
+
+	@Benchmark
+	public List<Person> streamFilter() {
+		return persons.stream()
+				.filter(person -> "Texas".equals(person.getState()))
+				.collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<Person> fusedFilter() {
+		return TEXANS.toList(persons);
+	}
+
+	@Benchmark
+	public List<String> streamMapKeys() {
+		return map.entrySet().stream()
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<String> fusedMapKeys() {
+		return KEYS.toList(map.entrySet());
+	}
+
+	@Benchmark
+	public Optional<Person> streamFindFirst() {
+		return persons.stream()
+				.filter(person -> last.equals(person.getName()))
+				.findFirst();
+	}
+
+	@Benchmark
+	public Optional<Person> fusedFindFirst() {
+		return named.findFirst(persons);
+	}
+}
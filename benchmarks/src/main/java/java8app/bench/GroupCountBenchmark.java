@@ -0,0 +1,68 @@
+package java8app.bench;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java8app.collect.CounterCollectors;
+import java8app.collect.ObjIntCounterMap;
+import java8app.collect.ObjLongCounterMap;
+import java8app.model.Item;
+
+// Collectors.counting()/summingInt() against the open-addressing counter collectors.
+public class GroupCountBenchmark extends StreamBenchmark {
+
+	private String[] fruits;
+	private Item[] items;
+
+	@Override
+	protected void setUp() {
+		fruits = BenchmarkData.fruits(size);
+		items = BenchmarkData.items(size);
+	}
+
+	@Benchmark
+	public Map<String, Long> groupingByCounting() {
+		return run(() -> mode(Arrays.stream(fruits))
+				.collect(Collectors.groupingBy(Function.identity(), Collectors.counting())));
+	}
+
+	@Benchmark
+	public ObjLongCounterMap<String> counterMapCounting() {
+		return run(() -> mode(Arrays.stream(fruits)).collect(CounterCollectors.counting(Function.identity())));
+	}
+
+	@Benchmark
+	public Map<String, Integer> groupingBySummingInt() {
+		return run(() -> mode(Arrays.stream(items))
+				.collect(Collectors.groupingBy(Item::getName, Collectors.summingInt(Item::getQty))));
+	}
+
+	@Benchmark
+	public ObjIntCounterMap<String> counterMapSummingInt() {
+		return run(() -> mode(Arrays.stream(items)).collect(CounterCollectors.summingInt(Item::getName, Item::getQty)));
+	}
+
+	@Benchmark
+	public Map<String, Long> groupingByCountingThenSort() {
+		return run(() -> {
+			Map<String, Long> counts = mode(Arrays.stream(fruits))
+					.collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+			Map<String, Long> sorted = new LinkedHashMap<>();
+			counts.entrySet().stream()
+				.sorted(Map.Entry.<String, Long>comparingByValue()
+						.reversed().thenComparing(Map.Entry.<String, Long>comparingByKey()))
+				.forEachOrdered(entry -> sorted.put(entry.getKey(), entry.getValue()));
+			return sorted;
+		});
+	}
+
+	@Benchmark
+	public Map<String, Long> counterMapCountingSortedByCount() {
+		return run(() -> mode(Arrays.stream(fruits)).collect(CounterCollectors.countingSortedByCount(Function.identity())));
+	}
+}
@@ -0,0 +1,69 @@
+package java8app.bench;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java8app.model.Item;
+import java8app.model.Person;
+
+// Pipelines from groupingByOnStreams() and groupCountMappingOnStreams().
+public class GroupingBenchmark extends StreamBenchmark {
+
+	private List<Person> persons;
+	private Item[] items;
+
+	@Override
+	protected void setUp() {
+		persons = BenchmarkData.persons(size);
+		items = BenchmarkData.items(size);
+	}
+
+	@Benchmark
+	public Map<String, List<Person>> groupByCity() {
+		return run(() -> mode(persons.stream()).collect(Collectors.groupingBy(Person::getCity)));
+	}
+
+	@Benchmark
+	public Map<String, Map<String, List<Person>>> groupByStateAndCity() {
+		return run(() -> mode(persons.stream())
+				.collect(Collectors.groupingBy(Person::getState, Collectors.groupingBy(Person::getCity))));
+	}
+
+	@Benchmark
+	public Map<String, Long> groupByNameCounting() {
+		return run(() -> mode(Arrays.stream(items))
+				.collect(Collectors.groupingBy(Item::getName, Collectors.counting())));
+	}
+
+	@Benchmark
+	public Map<String, Integer> groupByNameSummingQty() {
+		return run(() -> mode(Arrays.stream(items))
+				.collect(Collectors.groupingBy(Item::getName, Collectors.summingInt(Item::getQty))));
+	}
+
+	@Benchmark
+	public Map<String, Double> groupByNameAveragingPricePerPound() {
+		return run(() -> mode(Arrays.stream(items))
+				.collect(Collectors.groupingBy(Item::getName,
+						Collectors.averagingDouble(item -> item.getPrice() / item.getQty()))));
+	}
+
+	@Benchmark
+	public Map<Double, Set<String>> groupByPriceMappingToSet() {
+		return run(() -> mode(Arrays.stream(items))
+				.collect(Collectors.groupingBy(Item::getPrice,
+						Collectors.mapping(Item::getName, Collectors.toSet()))));
+	}
+
+	@Benchmark
+	public Map<Boolean, Set<String>> partitionByExpensive() {
+		return run(() -> mode(Arrays.stream(items))
+				.collect(Collectors.partitioningBy(item -> item.getPrice() > 19.99,
+						Collectors.mapping(Item::getName, Collectors.toSet()))));
+	}
+}
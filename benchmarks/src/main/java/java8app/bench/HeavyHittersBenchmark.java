@@ -0,0 +1,49 @@
+package java8app.bench;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java8app.collect.HeavyHitterCollectors;
+
+// Exact group-count plus sort against the bounded-memory heavy-hitter sketch, for the top 10
+// keys in "count desc, then name asc" order.
+public class HeavyHittersBenchmark extends StreamBenchmark {
+
+	private String[] keys;
+
+	@Override
+	protected void setUp() {
+		// skewed keys over a large key space, like an event stream
+		Random random = new Random(BenchmarkData.SEED);
+		keys = new String[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = "event" + (int) Math.pow(size, random.nextDouble());
+		}
+	}
+
+	@Benchmark
+	public Map<String, Long> exactCountThenSort() {
+		return run(() -> {
+			Map<String, Long> counts = mode(Arrays.stream(keys))
+					.collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+			Map<String, Long> top = new LinkedHashMap<>();
+			counts.entrySet().stream()
+				.sorted(Map.Entry.<String, Long>comparingByValue()
+						.reversed().thenComparing(Map.Entry.<String, Long>comparingByKey()))
+				.limit(10)
+				.forEachOrdered(entry -> top.put(entry.getKey(), entry.getValue()));
+			return top;
+		});
+	}
+
+	@Benchmark
+	public Map<String, Long> heavyHitters() {
+		return run(() -> mode(Arrays.stream(keys)).collect(HeavyHitterCollectors.topCounts(Function.identity(), 10, 100)));
+	}
+}
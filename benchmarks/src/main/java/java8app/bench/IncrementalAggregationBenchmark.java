@@ -0,0 +1,113 @@
+package java8app.bench;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java8app.incremental.GroupStats;
+import java8app.incremental.IncrementalAggregator;
+import java8app.incremental.WindowedAggregator;
+import java8app.model.Item;
+
+// A window of the last size items slides by one item per operation, and the per-name averages
+// are read after each step: re-running groupingBy over the window against insert/retract on an
+// IncrementalAggregator. The windowed group measures timestamped inserts on three threads while
+// a fourth keeps reading the current window.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IncrementalAggregationBenchmark {
+
+	@Param({"1000", "1000000"})
+	public int size;
+
+	private Item[] items;
+	private int next;
+	private ArrayDeque<Item> window;
+	private IncrementalAggregator<Item, String> aggregator;
+	private WindowedAggregator<Arrival, String> timeWindow;
+	private final AtomicLong clock = new AtomicLong();
+
+	@Setup
+	public void setUp() {
+		items = BenchmarkData.items(size);
+		window = new ArrayDeque<>(size);
+		aggregator = new IncrementalAggregator<>(Item::getName, Item::getQty, item -> item.getPrice() / item.getQty());
+		for (Item item : items) {
+			window.addLast(item);
+			aggregator.insert(item);
+		}
+		// one item per millisecond, a window of about size milliseconds sliding every tenth of it
+		long slide = Math.max(1, size / 10);
+		timeWindow = WindowedAggregator.sliding(arrival -> arrival.item.getName(), arrival -> arrival.item.getQty(),
+				arrival -> arrival.item.getPrice() / arrival.item.getQty(), arrival -> arrival.time, slide * 10, slide);
+	}
+
+	private Item arriving() {
+		Item item = items[next];
+		next = next + 1 == items.length ? 0 : next + 1;
+		return item;
+	}
+
+	@Benchmark
+	public Map<String, Double> recollect() {
+		window.pollFirst();
+		window.addLast(arriving());
+		return window.stream()
+				.collect(Collectors.groupingBy(Item::getName, Collectors.averagingDouble(item -> item.getPrice() / item.getQty())));
+	}
+
+	@Benchmark
+	public Map<String, Double> incremental() {
+		Item arriving = arriving();
+		aggregator.retract(window.pollFirst());
+		aggregator.insert(arriving);
+		window.addLast(arriving);
+		return aggregator.averages();
+	}
+
+	@Benchmark
+	@Group("windowed")
+	@GroupThreads(3)
+	public void windowedInsert() {
+		long time = clock.incrementAndGet();
+		timeWindow.insert(new Arrival(items[(int) (time % items.length)], time));
+	}
+
+	@Benchmark
+	@Group("windowed")
+	@GroupThreads(1)
+	public GroupStats windowedRead() {
+		return timeWindow.get(BenchmarkData.FRUITS[0]);
+	}
+
+	static final class Arrival {
+
+		final Item item;
+		final long time;
+
+		Arrival(Item item, long time) {
+			this.item = item;
+			this.time = time;
+		}
+	}
+}
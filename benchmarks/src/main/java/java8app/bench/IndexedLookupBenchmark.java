@@ -0,0 +1,86 @@
+package java8app.bench;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java8app.index.Attribute;
+import java8app.index.IndexedCollection;
+import java8app.index.Query;
+import java8app.model.Person;
+
+// The lookups of filteringAStream() as linear stream scans against IndexedCollection queries.
+// Single lookups do not fork, so there is no parallelism parameter.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexedLookupBenchmark {
+
+	private static final Attribute<Person, String> NAME = Attribute.of("name", Person::getName);
+	private static final Attribute<Person, Integer> AGE = Attribute.of("age", Person::getAge);
+
+	@Param({"1000", "1000000"})
+	public int size;
+
+	private List<Person> persons;
+	private IndexedCollection<Person> indexed;
+	private String name;
+
+	@Setup
+	public void setUp() {
+		persons = BenchmarkData.persons(size);
+		indexed = new IndexedCollection<Person>()
+				.addHashIndex(NAME)
+				.addHashIndex(Attribute.composite(NAME, AGE))
+				.addSortedIndex(AGE);
+		indexed.addAll(persons);
+		name = persons.get(persons.size() / 2).getName();
+	}
+
+	@Benchmark
+	public Person scanByName() {
+		return persons.stream().filter(x -> name.equals(x.getName())).findAny().orElse(null);
+	}
+
+	@Benchmark
+	public Person indexByName() {
+		return indexed.findAny(Query.equal(NAME, name)).orElse(null);
+	}
+
+	@Benchmark
+	public Person scanByNameAndAge() {
+		return persons.stream().filter(x -> name.equals(x.getName()) && 21 == x.getAge()).findAny().orElse(null);
+	}
+
+	@Benchmark
+	public Person indexByNameAndAge() {
+		return indexed.findAny(Query.and(Query.equal(NAME, name), Query.equal(AGE, 21))).orElse(null);
+	}
+
+	@Benchmark
+	public Optional<Person> scanOldest() {
+		return persons.stream().collect(Collectors.maxBy(Comparator.comparing(Person::getAge)));
+	}
+
+	@Benchmark
+	public Optional<Person> indexOldest() {
+		return indexed.max(AGE);
+	}
+}
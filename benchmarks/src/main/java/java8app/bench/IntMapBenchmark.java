@@ -0,0 +1,101 @@
+package java8app.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java8app.collect.IntMapCollectors;
+import java8app.collect.IntObjMap;
+import java8app.model.Hosting;
+
+// The id -> name map of convertListToMap() built with Collectors.toMap() and with toIntMap(),
+// for contiguous ids (dense layout) and for scattered ids (hashed layout). The gc profiler's
+// alloc.rate.norm of the build benchmarks shows the bytes allocated per map; the get
+// benchmarks look up LOOKUPS random ids per operation.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntMapBenchmark {
+
+	private static final int LOOKUPS = 1024;
+
+	@Param({"1000", "1000000"})
+	public int size;
+
+	@Param({"contiguous", "scattered"})
+	public String ids;
+
+	private List<Hosting> hostings;
+	private Map<Integer, String> hashMap;
+	private IntObjMap<String> intMap;
+	private int[] probes;
+
+	@Setup
+	public void setUp() {
+		hostings = BenchmarkData.hostings(size);
+		if ("scattered".equals(ids)) {
+			// multiplying by an odd constant is a bijection on int, so ids stay unique
+			List<Hosting> scattered = new ArrayList<>(size);
+			for (Hosting hosting : hostings) {
+				scattered.add(new Hosting(hosting.getId() * 0x9E3779B1, hosting.getName(), hosting.getCreatedDate()));
+			}
+			hostings = scattered;
+		}
+		hashMap = buildHashMap();
+		intMap = buildIntMap();
+		Random random = new Random(BenchmarkData.SEED);
+		probes = new int[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; i++) {
+			probes[i] = hostings.get(random.nextInt(size)).getId();
+		}
+	}
+
+	@Benchmark
+	public Map<Integer, String> buildHashMap() {
+		return hostings.stream().collect(Collectors.toMap(Hosting::getId, Hosting::getName));
+	}
+
+	@Benchmark
+	public IntObjMap<String> buildIntMap() {
+		return hostings.stream().collect(IntMapCollectors.toIntMap(Hosting::getId, Hosting::getName));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS)
+	public int getHashMap() {
+		int found = 0;
+		for (int id : probes) {
+			found += hashMap.get(id).length();
+		}
+		return found;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS)
+	public int getIntMap() {
+		int found = 0;
+		for (int id : probes) {
+			found += intMap.get(id).length();
+		}
+		return found;
+	}
+}
@@ -0,0 +1,74 @@
+package java8app.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java8app.io.LineSink;
+import java8app.io.MappedLines;
+
+// The filter -> collect pipeline of filteringAStream() over a line file: Files.lines() against
+// the newline-aligned MappedLines spliterator, and collecting against streaming into a LineSink.
+// size is the number of lines.
+public class LinesBenchmark extends StreamBenchmark {
+
+	private Path input;
+	private Path output;
+
+	@Override
+	protected void setUp() {
+		try {
+			input = Files.createTempFile("lines", ".txt");
+			output = Files.createTempFile("filtered", ".txt");
+			try (BufferedWriter writer = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+				for (String fruit : BenchmarkData.fruits(size)) {
+					writer.write(fruit);
+					writer.newLine();
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteFiles() throws IOException {
+		Files.deleteIfExists(input);
+		Files.deleteIfExists(output);
+	}
+
+	@Benchmark
+	public List<String> filesLinesCollect() throws IOException {
+		try (Stream<String> lines = Files.lines(input)) {
+			return run(() -> mode(lines).filter(line -> !"apple".equals(line)).collect(Collectors.toList()));
+		}
+	}
+
+	@Benchmark
+	public List<String> mappedLinesCollect() throws IOException {
+		try (Stream<String> lines = MappedLines.lines(input)) {
+			return run(() -> mode(lines).filter(line -> !"apple".equals(line)).collect(Collectors.toList()));
+		}
+	}
+
+	@Benchmark
+	public long mappedLinesToSink() throws IOException {
+		try (Stream<String> lines = MappedLines.lines(input); LineSink sink = LineSink.create(output)) {
+			run(() -> {
+				mode(lines).filter(line -> !"apple".equals(line)).forEach(sink);
+				return null;
+			});
+			return sink.lineCount();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package java8app.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java8app.io.ItemFile;
+import java8app.model.Item;
+
+// Grouping, partitioning and filtering queries run straight off a mapped ItemFile, next to the
+// same queries over the equivalent Item[] on the heap.
+public class MappedFileBenchmark extends StreamBenchmark {
+
+	private static final byte[] APPLE = ItemFile.nameBytes("apple");
+
+	private Item[] items;
+	private Path path;
+	private ItemFile file;
+
+	@Override
+	protected void setUp() {
+		items = BenchmarkData.items(size);
+		try {
+			path = Files.createTempFile("items", ".bin");
+			ItemFile.write(path, 16, Arrays.asList(items));
+			file = ItemFile.open(path);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteFile() throws IOException {
+		file.close();
+		Files.deleteIfExists(path);
+	}
+
+	@Benchmark
+	public Map<String, Long> heapGroupByName() {
+		return run(() -> mode(Arrays.stream(items)).collect(Collectors.groupingBy(Item::getName, Collectors.counting())));
+	}
+
+	@Benchmark
+	public Map<String, Long> mappedGroupByName() {
+		return run(() -> mode(file.stream()).collect(Collectors.groupingBy(ItemFile.View::getName, Collectors.counting())));
+	}
+
+	@Benchmark
+	public Map<Boolean, Integer> heapPartitionByPrice() {
+		return run(() -> mode(Arrays.stream(items))
+				.collect(Collectors.partitioningBy(item -> item.getPrice() > 19.99, Collectors.summingInt(Item::getQty))));
+	}
+
+	@Benchmark
+	public Map<Boolean, Integer> mappedPartitionByPrice() {
+		return run(() -> mode(file.stream())
+				.collect(Collectors.partitioningBy(item -> item.getPrice() > 19.99, Collectors.summingInt(ItemFile.View::getQty))));
+	}
+
+	@Benchmark
+	public long heapFilterByName() {
+		return run(() -> mode(Arrays.stream(items)).filter(item -> "apple".equals(item.getName())).count());
+	}
+
+	@Benchmark
+	public long mappedFilterByName() {
+		return run(() -> mode(file.stream()).filter(item -> item.nameEquals(APPLE)).count());
+	}
+}
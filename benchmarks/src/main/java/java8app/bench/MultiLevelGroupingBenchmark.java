@@ -0,0 +1,52 @@
+package java8app.bench;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java8app.collect.MultiLevelGrouping;
+import java8app.model.Person;
+
+// State -> city grouping: nested groupingBy, nested groupingByConcurrent and MultiLevelGrouping.
+public class MultiLevelGroupingBenchmark extends StreamBenchmark {
+
+	private List<Person> persons;
+
+	@Override
+	protected void setUp() {
+		persons = BenchmarkData.persons(size);
+	}
+
+	@Benchmark
+	public Map<String, Map<String, List<Person>>> nestedGroupingBy() {
+		return run(() -> mode(persons.stream())
+				.collect(Collectors.groupingBy(Person::getState, Collectors.groupingBy(Person::getCity))));
+	}
+
+	@Benchmark
+	public ConcurrentMap<String, ConcurrentMap<String, List<Person>>> nestedGroupingByConcurrent() {
+		return run(() -> mode(persons.stream())
+				.collect(Collectors.groupingByConcurrent(Person::getState, Collectors.groupingByConcurrent(Person::getCity))));
+	}
+
+	@Benchmark
+	public Map<String, Map<String, List<Person>>> multiLevelGrouping() {
+		return run(() -> mode(persons.stream())
+				.collect(MultiLevelGrouping.groupingBy(Person::getState, Person::getCity, Collectors.toList())));
+	}
+
+	@Benchmark
+	public Map<String, Map<String, Long>> nestedGroupingByCounting() {
+		return run(() -> mode(persons.stream())
+				.collect(Collectors.groupingBy(Person::getState, Collectors.groupingBy(Person::getCity, Collectors.counting()))));
+	}
+
+	@Benchmark
+	public Map<String, Map<String, Long>> multiLevelGroupingCounting() {
+		return run(() -> mode(persons.stream())
+				.collect(MultiLevelGrouping.groupingBy(Person::getState, Person::getCity, Collectors.counting())));
+	}
+}
@@ -0,0 +1,19 @@
+package java8app.bench;
+
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+// The range sum from performanceBenchMarking(), measured with warm-up instead of a single
+// currentTimeMillis() sample.
+public class RangeSumBenchmark extends StreamBenchmark {
+
+	@Override
+	protected void setUp() {
+	}
+
+	@Benchmark
+	public long rangeSum() {
+		return run(() -> mode(LongStream.rangeClosed(1, size)).sum());
+	}
+}
@@ -0,0 +1,51 @@
+package java8app.bench;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java8app.model.Person;
+import java8app.stream.ReplayableSource;
+
+// Three queries over a parsed source: re-parsing through a Supplier<Stream> on every query
+// against parsing once into a ReplayableSource.
+public class ReplayableSourceBenchmark extends StreamBenchmark {
+
+	private String[] lines;
+
+	@Override
+	protected void setUp() {
+		lines = BenchmarkData.persons(size).stream()
+				.map(p -> p.getName() + "," + p.getAge() + "," + p.getState() + "," + p.getCity())
+				.toArray(String[]::new);
+	}
+
+	private Stream<Person> parse() {
+		return Arrays.stream(lines).map(line -> {
+			String[] fields = line.split(",");
+			return new Person(fields[0], Integer.parseInt(fields[1]), fields[2], fields[3]);
+		});
+	}
+
+	private long queries(Supplier<Stream<Person>> persons) {
+		long adults = mode(persons.get()).filter(p -> p.getAge() >= 18).count();
+		List<String> texans = mode(persons.get()).filter(p -> "Texas".equals(p.getState()))
+				.map(Person::getName).collect(Collectors.toList());
+		int oldest = mode(persons.get()).mapToInt(Person::getAge).max().orElse(-1);
+		return adults + texans.size() + oldest;
+	}
+
+	@Benchmark
+	public long supplierReparse() {
+		return run(() -> queries(this::parse));
+	}
+
+	@Benchmark
+	public long replayableSource() {
+		return run(() -> queries(ReplayableSource.of(this::parse)::stream));
+	}
+}
@@ -0,0 +1,53 @@
+package java8app.bench;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java8app.collect.SortedArrayMap;
+import java8app.collect.SortedMapCollectors;
+
+// sorted() + forEachOrdered into a LinkedHashMap against the merge-based toSortedMap collector.
+public class SortedMapBenchmark extends StreamBenchmark {
+
+	private Map<String, Integer> unsortedMap;
+
+	@Override
+	protected void setUp() {
+		unsortedMap = BenchmarkData.unsortedMap(size);
+	}
+
+	@Benchmark
+	public Map<String, Integer> sortByValueForEachOrdered() {
+		return run(() -> {
+			Map<String, Integer> sorted = new LinkedHashMap<>();
+			mode(unsortedMap.entrySet().stream())
+				.sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+						.thenComparing(Map.Entry.<String, Integer>comparingByKey()))
+				.forEachOrdered(entry -> sorted.put(entry.getKey(), entry.getValue()));
+			return sorted;
+		});
+	}
+
+	@Benchmark
+	public SortedArrayMap<String, Integer> sortByValueToSortedMap() {
+		return run(() -> mode(unsortedMap.entrySet().stream()).collect(SortedMapCollectors.<String, Integer>sortedByValueDesc()));
+	}
+
+	@Benchmark
+	public Map<String, Integer> sortByKeyForEachOrdered() {
+		return run(() -> {
+			Map<String, Integer> sorted = new LinkedHashMap<>();
+			mode(unsortedMap.entrySet().stream())
+				.sorted(Map.Entry.<String, Integer>comparingByKey())
+				.forEachOrdered(entry -> sorted.put(entry.getKey(), entry.getValue()));
+			return sorted;
+		});
+	}
+
+	@Benchmark
+	public SortedArrayMap<String, Integer> sortByKeyToSortedMap() {
+		return run(() -> mode(unsortedMap.entrySet().stream()).collect(SortedMapCollectors.<String, Integer>sortedByKey()));
+	}
+}
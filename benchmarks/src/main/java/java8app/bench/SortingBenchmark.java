@@ -0,0 +1,65 @@
+package java8app.bench;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+// Pipelines from sortMapByKeyByAndValue() and groupingAndSortingOnStream().
+public class SortingBenchmark extends StreamBenchmark {
+
+	private Map<String, Integer> unsortedMap;
+	private String[] fruits;
+
+	@Override
+	protected void setUp() {
+		unsortedMap = BenchmarkData.unsortedMap(size);
+		fruits = BenchmarkData.fruits(size);
+	}
+
+	@Benchmark
+	public Map<String, Integer> sortByKeyForEachOrdered() {
+		return run(() -> {
+			Map<String, Integer> sorted = new LinkedHashMap<>();
+			mode(unsortedMap.entrySet().stream())
+				.sorted((a, b) -> a.getKey().compareTo(b.getKey()))
+				.forEachOrdered(entry -> sorted.put(entry.getKey(), entry.getValue()));
+			return sorted;
+		});
+	}
+
+	@Benchmark
+	public Map<String, Integer> sortByKeyToMap() {
+		return run(() -> mode(unsortedMap.entrySet().stream())
+				.sorted((a, b) -> a.getKey().compareTo(b.getKey()))
+				.collect(Collectors.toMap(p -> p.getKey(), p -> p.getValue())));
+	}
+
+	@Benchmark
+	public Map<String, Integer> sortByValueDescForEachOrdered() {
+		return run(() -> {
+			Map<String, Integer> sorted = new LinkedHashMap<>();
+			mode(unsortedMap.entrySet().stream())
+				.sorted((a, b) -> b.getValue().compareTo(a.getValue()))
+				.forEachOrdered(entry -> sorted.put(entry.getKey(), entry.getValue()));
+			return sorted;
+		});
+	}
+
+	@Benchmark
+	public Map<String, Long> groupCountThenSortByCountDescNameAsc() {
+		return run(() -> {
+			Map<String, Long> counts = mode(Arrays.stream(fruits))
+					.collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+			Map<String, Long> sorted = new LinkedHashMap<>();
+			mode(counts.entrySet().stream())
+				.sorted(Map.Entry.<String, Long>comparingByValue()
+						.reversed().thenComparing(Map.Entry.<String, Long>comparingByKey()))
+				.forEachOrdered(entry -> sorted.put(entry.getKey(), entry.getValue()));
+			return sorted;
+		});
+	}
+}
@@ -0,0 +1,68 @@
+package java8app.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.BaseStream;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Common parameters for the pipeline benchmarks. A parallelism of 1 runs the sequential
+// stream; anything larger runs the parallel stream inside a ForkJoinPool of that many workers,
+// so results do not depend on the size of the common pool.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class StreamBenchmark {
+
+	@Param({"1000", "1000000"})
+	public int size;
+
+	@Param({"1", "4"})
+	public int parallelism;
+
+	private ForkJoinPool pool;
+
+	@Setup(Level.Trial)
+	public void setUpPool() {
+		pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+		setUp();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownPool() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	protected abstract void setUp();
+
+	protected boolean parallel() {
+		return pool != null;
+	}
+
+	// Switches the stream to parallel when the benchmark runs with more than one worker.
+	protected <T, S extends BaseStream<T, S>> S mode(S stream) {
+		return pool == null ? stream : stream.parallel();
+	}
+
+	// Runs the pipeline in the dedicated pool, so parallel stages fork into it.
+	protected <R> R run(Supplier<R> pipeline) {
+		return pool == null ? pipeline.get() : pool.submit(pipeline::get).join();
+	}
+}
@@ -0,0 +1,61 @@
+package java8app.bench;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java8app.model.Student;
+import java8app.perf.StreamProfiler;
+
+// Cost of instrumenting the map -> flatMap -> distinct -> collect pipeline of flatMap(): the
+// plain pipeline, the same pipeline through a profiler that is off, and with TIMING and
+// ALLOCATIONS profiling on.
+public class StreamProfilerBenchmark extends StreamBenchmark {
+
+	private List<Student> students;
+	private StreamProfiler off;
+	private StreamProfiler timing;
+	private StreamProfiler allocations;
+
+	@Override
+	protected void setUp() {
+		students = BenchmarkData.students(size);
+		off = StreamProfiler.create(StreamProfiler.Mode.OFF);
+		timing = StreamProfiler.create(StreamProfiler.Mode.TIMING);
+		allocations = StreamProfiler.create(StreamProfiler.Mode.ALLOCATIONS);
+	}
+
+	@Benchmark
+	public List<String> plain() {
+		return run(() -> mode(students.stream())
+				.map(x -> x.getBook())
+				.flatMap(x -> x.stream())
+				.distinct()
+				.collect(Collectors.toList()));
+	}
+
+	@Benchmark
+	public List<String> profilerOff() {
+		return run(() -> profiled(off));
+	}
+
+	@Benchmark
+	public List<String> profilerTiming() {
+		return run(() -> profiled(timing));
+	}
+
+	@Benchmark
+	public List<String> profilerAllocations() {
+		return run(() -> profiled(allocations));
+	}
+
+	private List<String> profiled(StreamProfiler profiler) {
+		return profiler.probe("distinct", mode(students.stream())
+				.map(profiler.<Student, Set<String>>map("getBook", x -> x.getBook()))
+				.flatMap(profiler.<Set<String>, String>flatMap("stream", x -> x.stream()))
+				.distinct())
+				.collect(profiler.collector("toList", Collectors.<String>toList()));
+	}
+}
@@ -0,0 +1,37 @@
+package java8app.bench;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java8app.model.Hosting;
+
+// Pipelines from convertListToMap() and convertMaptToList().
+public class ToMapBenchmark extends StreamBenchmark {
+
+	private List<Hosting> hostings;
+	private Map<Integer, String> hostingMap;
+
+	@Override
+	protected void setUp() {
+		hostings = BenchmarkData.hostings(size);
+		hostingMap = hostings.stream().collect(Collectors.toMap(Hosting::getId, Hosting::getName));
+	}
+
+	@Benchmark
+	public Map<Integer, String> listToMap() {
+		return run(() -> mode(hostings.stream()).collect(Collectors.toMap(Hosting::getId, Hosting::getName)));
+	}
+
+	@Benchmark
+	public List<Integer> mapKeysToList() {
+		return run(() -> mode(hostingMap.entrySet().stream()).map(x -> x.getKey()).collect(Collectors.toList()));
+	}
+
+	@Benchmark
+	public List<String> mapValuesToList() {
+		return run(() -> mode(hostingMap.entrySet().stream()).map(x -> x.getValue()).collect(Collectors.toList()));
+	}
+}
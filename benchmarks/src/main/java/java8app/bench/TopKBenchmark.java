@@ -0,0 +1,64 @@
+package java8app.bench;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java8app.collect.TopKCollectors;
+
+// Full sort of the entry set against the bounded-heap top-K collectors for "sort by value
+// descending, then by key".
+public class TopKBenchmark extends StreamBenchmark {
+
+	@Param({"10"})
+	public int k;
+
+	private Map<String, Integer> unsortedMap;
+
+	private static final Comparator<Map.Entry<String, Integer>> ORDER =
+			Map.Entry.<String, Integer>comparingByValue().reversed()
+				.thenComparing(Map.Entry.<String, Integer>comparingByKey());
+
+	@Override
+	protected void setUp() {
+		unsortedMap = BenchmarkData.unsortedMap(size);
+	}
+
+	@Benchmark
+	public Map<String, Integer> sortThenLimit() {
+		return run(() -> {
+			Map<String, Integer> top = new LinkedHashMap<>();
+			mode(unsortedMap.entrySet().stream())
+				.sorted(ORDER)
+				.limit(k)
+				.forEachOrdered(entry -> top.put(entry.getKey(), entry.getValue()));
+			return top;
+		});
+	}
+
+	@Benchmark
+	public List<Map.Entry<String, Integer>> topK() {
+		return run(() -> mode(unsortedMap.entrySet().stream()).collect(TopKCollectors.topK(k, ORDER)));
+	}
+
+	@Benchmark
+	public List<Map.Entry<String, Integer>> parallelTopK() {
+		return run(() -> mode(unsortedMap.entrySet().stream()).collect(TopKCollectors.parallelTopK(k, ORDER)));
+	}
+
+	@Benchmark
+	public Map<String, Integer> topKByValue() {
+		return run(() -> mode(unsortedMap.entrySet().stream()).collect(TopKCollectors.<String, Integer>topKByValue(k)));
+	}
+
+	// Sorted list of every entry, to show what the top-K variants avoid.
+	@Benchmark
+	public List<Map.Entry<String, Integer>> sortAll() {
+		return run(() -> mode(unsortedMap.entrySet().stream()).sorted(ORDER).collect(Collectors.toList()));
+	}
+}
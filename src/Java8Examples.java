@@ -1,3 +1,6 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -15,6 +18,36 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
+
+import java8app.async.AsyncPipeline;
+import java8app.collect.CounterCollectors;
+import java8app.collect.DistinctCollectors;
+import java8app.collect.ExternalGrouping;
+import java8app.collect.ExternalGroups;
+import java8app.collect.FanOut;
+import java8app.collect.HeavyHitterCollectors;
+import java8app.collect.IntMapCollectors;
+import java8app.collect.IntObjMap;
+import java8app.collect.MultiLevelGrouping;
+import java8app.collect.SortedMapCollectors;
+import java8app.collect.TopKCollectors;
+import java8app.dictionary.DictionaryCollectors;
+import java8app.dictionary.EncodedPerson;
+import java8app.dictionary.StringDictionary;
+import java8app.incremental.IncrementalAggregator;
+import java8app.incremental.WindowedAggregator;
+import java8app.index.Attribute;
+import java8app.index.BiIndexedMap;
+import java8app.index.EntryFilter;
+import java8app.index.IndexedCollection;
+import java8app.index.Query;
+import java8app.io.RecordCodec;
+import java8app.perf.RangeSumScaling;
+import java8app.perf.StreamProfiler;
+import java8app.scenario.ScenarioRunner;
+import java8app.stream.CompiledPipeline;
+import java8app.stream.Pipeline;
+import java8app.stream.ReplayableSource;
 // https://www.mkyong.com/java8/page/2/
 // http://www.oracle.com/technetwork/articles/java/ma14-java-se-8-streams-2177646.html
 // http://www.oracle.com/technetwork/articles/java/architect-streams-pt2-2227132.html
@@ -69,6 +102,18 @@ public class Java8Examples {
 														.sorted((a, b) -> b.getValue().compareTo(a.getValue()))
 														.collect(Collectors.toMap(p -> p.getKey(), p -> p.getValue()));
 		System.out.println(sortedMapByValueBetter);
+		
+		// toMap above returns a HashMap, so the sort is lost. This collector keeps the order, also under parallel()
+		System.out.println("Sorted By Value : Order Preserving Collector...");
+		Map<String, Integer> sortedMapByValueKept = unsortedMap.entrySet().stream()
+														.collect(SortedMapCollectors.sortedByValueDesc());
+		System.out.println(sortedMapByValueKept);
+		
+		// When only the first few entries are needed, a bounded heap avoids sorting the whole entry set
+		System.out.println("Top 3 By Value, then By Key...");
+		Map<String, Integer> top3ByValue = unsortedMap.entrySet().stream()
+														.collect(TopKCollectors.topKByValue(3));
+		System.out.println(top3ByValue);
 	}
 
 	public static void convertStreamToList() {
@@ -133,6 +178,48 @@ public class Java8Examples {
 		Map<String, Map<String, List<Person>>> peopleByStateAndCity = 
 				personStreamSupplier.get().collect(Collectors.groupingBy(Person::getState, Collectors.groupingBy(Person::getCity)));
 		System.out.println(peopleByStateAndCity);
+		
+		// Same classification for parallel streams: every thread fills its own table and the tables are merged once at the end
+		System.out.println("Classify {Person} objects by state and city in parallel...");
+		Map<String, Map<String, List<Person>>> peopleByStateAndCityParallel = 
+				personStreamSupplier.get().parallel().collect(MultiLevelGrouping.groupingBy(Person::getState, Person::getCity, Collectors.toList()));
+		System.out.println(peopleByStateAndCityParallel);
+		
+		// Same classification with states and cities encoded to int codes when the people are read, so the grouping
+		// indexes arrays by code instead of hashing strings, and only decodes each city once for the result
+		System.out.println("Classify dictionary-encoded {Person} objects by state and city...");
+		StringDictionary places = new StringDictionary();
+		List<EncodedPerson> encodedPeople = Stream.of(new java8app.model.Person("Timothy", 41, "Texas", "Austin"),
+				new java8app.model.Person("Adriana", 29, "California", "San Francisco"),
+				new java8app.model.Person("Lavatno", 35, "California", "Sunnyvale"),
+				new java8app.model.Person("Andrey", 52, "New York", "Manhattan"))
+				.map(x -> EncodedPerson.encode(x, places))
+				.collect(Collectors.toList());
+		Map<String, Map<String, List<String>>> namesByStateAndCity = encodedPeople.stream().collect(
+				DictionaryCollectors.groupingBy(places, EncodedPerson::getState, DictionaryCollectors.groupingBy(places,
+						EncodedPerson::getCity, Collectors.mapping(EncodedPerson::getName, Collectors.toList()))));
+		System.out.println(encodedPeople + " " + namesByStateAndCity);
+		
+		// Same classification for inputs larger than the heap: past the memory budget, people are written to
+		// temporary files by city and each file is grouped on its own. The codec tells how to write and read a Person
+		System.out.println("Classify {Person} objects by city, spilling to disk above a budget of 128 bytes...");
+		RecordCodec<Person> personCodec = new RecordCodec<Person>() {
+			@Override
+			public void write(DataOutput out, Person person) throws IOException {
+				out.writeUTF(person.getName());
+				out.writeUTF(person.getState());
+				out.writeUTF(person.getCity());
+			}
+			@Override
+			public Person read(DataInput in) throws IOException {
+				return new Person(in.readUTF(), in.readUTF(), in.readUTF());
+			}
+		};
+		try (ExternalGroups<String, List<String>> namesByCity = personStreamSupplier.get().collect(
+				ExternalGrouping.builder(personCodec).memoryBudget(128)
+						.groupingBy(Person::getCity, Collectors.mapping(Person::getName, Collectors.toList())))) {
+			System.out.println(namesByCity.isSpilled() + " " + namesByCity.toMap());
+		}
 	}
 	
 	public static void convertMaptToList() {
@@ -204,6 +291,28 @@ public class Java8Examples {
                 Collectors.toMap(x -> x.getId(), x -> x.getName()));
 
         System.out.println("Result 2 : " + result2);
+        
+        //example 3, ids as primitive keys: no boxed Integer and no map node per entry. Duplicate ids keep the last name
+        IntObjMap<String> result3 = list.stream().collect(
+                IntMapCollectors.toIntMap(Hosting::getId, Hosting::getName, IntMapCollectors.OnDuplicate.KEEP_LAST));
+
+        System.out.println("Result 3 : " + result3 + (result3.isDense() ? " (dense)" : " (hashed)"));
+
+        //example 4, a blocking lookup per hosting (a slow store, simulated by a sleep) run in batches on the pipeline's
+        //own threads instead of blocking the ForkJoinPool under parallel(); the output keeps the list order
+        try (AsyncPipeline<Hosting, String> lookup = AsyncPipeline.<Hosting, String>map(x -> {
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return x.getId() + "=" + x.getName().toUpperCase();
+                }).batchSize(1).concurrency(3).build()) {
+            long start = System.nanoTime();
+            List<String> result4 = lookup.collect(list.stream(), Collectors.toList());
+
+            System.out.println("Result 4 : " + result4 + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
 	}
 	
 	public static void streamCannotBeReused() {
@@ -236,6 +345,12 @@ public class Java8Examples {
         //get another new stream
         long count = streamSupplier.get().filter(x -> "b".equals(x)).count();
         System.out.println(count);
+        
+        // The Supplier rebuilds the source on every get(). ReplayableSource reads the source once and replays it from an array
+        ReplayableSource<String> replayable = ReplayableSource.of(() -> Stream.of(array));
+        replayable.stream().forEach(System.out::println);
+        count = replayable.stream().parallel().filter(x -> "b".equals(x)).count();
+        System.out.println(count);
 	}
 	
 	public static void groupingAndSortingOnStream() {
@@ -272,6 +387,30 @@ public class Java8Examples {
         		.forEachOrdered(entry -> groupByNameAndSortByCountDescThenByNameAscMap.put(entry.getKey(), entry.getValue()));
 
         System.out.println(groupByNameAndSortByCountDescThenByNameAscMap);
+        
+        // Same result with an open-addressing counter map, which updates a primitive count in place instead of boxing a Long per element
+        System.out.println("Group By the count of elements and Sort by count desc then name asc, without boxing...");
+        Map<String, Long> counterMapSortedByCount =
+                Stream.of(data).collect(CounterCollectors.countingSortedByCount(Function.identity()));
+
+        System.out.println(counterMapSortedByCount);
+        
+        // Same result from dictionary codes: each name is stored once and the records hold an int, so counting is an array
+        // increment and the names are only decoded for the output
+        System.out.println("Group By the count of dictionary-encoded names and Sort by count desc then name asc...");
+        StringDictionary fruitNames = new StringDictionary();
+        List<Integer> encodedData = Stream.of(data).map(fruitNames::encode).collect(Collectors.toList());
+        Map<String, Long> dictionarySortedByCount =
+                encodedData.stream().collect(DictionaryCollectors.countingSortedByCount(fruitNames, Integer::intValue));
+
+        System.out.println(encodedData + " " + dictionarySortedByCount);
+        
+        // When there are too many distinct names to count exactly, a fixed-size sketch estimates the top counts in the same order
+        System.out.println("Approximate top 3 counts in bounded memory...");
+        Map<String, Long> approximateTop3 =
+                Stream.of(data).collect(HeavyHitterCollectors.topCounts(Function.identity(), 3, 100));
+
+        System.out.println(approximateTop3);
 	}
 	
 	public static void groupCountMappingOnStreams() {
@@ -372,6 +511,48 @@ public class Java8Examples {
                   );
 
           System.out.println(partitionItemsAsExpensiveInExpensiveMap);
+          
+          // Each query above traverses the items again. FanOut feeds all the collectors from a single traversal
+          System.out.println("Count, Sum the Qty, Average Price per pound and Partition by price in a single traversal");
+          FanOut.Builder<Item> queries = FanOut.builder();
+          FanOut.Handle<Map<String, Long>> countByName = queries.add(Collectors.groupingBy(Item::getName, Collectors.counting()));
+          FanOut.Handle<Map<String, Integer>> qtyByName = queries.add(Collectors.groupingBy(Item::getName, Collectors.summingInt(Item::getQty)));
+          FanOut.Handle<Map<String, Double>> avgByName = queries.add(
+        		  Collectors.groupingBy(Item::getName, Collectors.averagingDouble(item -> item.getPrice() / item.getQty())));
+          FanOut.Handle<Map<Boolean, Set<String>>> expensive = queries.add(
+        		  Collectors.partitioningBy(item -> item.getPrice() > 19.99, Collectors.mapping(Item::getName, Collectors.toSet())));
+          FanOut.Results results = Stream.of(items).parallel().collect(queries.build());
+
+          System.out.println(results.get(countByName));
+          System.out.println(results.get(qtyByName));
+          System.out.println(results.get(avgByName));
+          System.out.println(results.get(expensive));
+          
+          // When items keep arriving, keep the aggregates up to date instead of collecting all the items again
+          System.out.println("Count, Sum the Qty and Average Price per pound updated item by item");
+          IncrementalAggregator<Item, String> live = new IncrementalAggregator<>(
+        		  Item::getName, Item::getQty, item -> item.getPrice() / item.getQty());
+          Stream.of(items).forEach(live::insert);
+          live.retract(items[0]);
+          live.insert(new Item("kiwi", 5, 4.99));
+
+          System.out.println(live.counts());
+          System.out.println(live.sums());
+          System.out.println(live.averages());
+          
+          // Same aggregates over the last 3 seconds only, sliding every second: the arrival index serves as timestamp,
+          // set on a clock before each insert so that equal items still get their own time
+          System.out.println("Count of Items per name in a sliding window of 3 seconds");
+          long[] clock = new long[1];
+          WindowedAggregator<Item, String> lastSeconds = WindowedAggregator.sliding(
+        		  Item::getName, Item::getQty, item -> item.getPrice() / item.getQty(),
+        		  item -> clock[0], 3000, 1000);
+          IntStream.range(0, items.length).forEach(i -> {
+        	  clock[0] = i * 1000L;
+        	  lastSeconds.insert(items[i]);
+          });
+
+          System.out.println(lastSeconds.counts());
 	}
 	
 	public static void filteringAMap() {
@@ -396,6 +577,20 @@ public class Java8Examples {
                 .collect(Collectors.toMap(entry -> entry.getKey(), entry -> entry.getValue()));
 
         System.out.println("With Java 8 : Map -> Stream -> Filter -> Map: " + collect); //output : {2=heroku.com}
+        
+        //Same lookups through a map that also indexes its values: a hash lookup each instead of a scan of every entry
+        BiIndexedMap<Integer, String> indexedHosting = new BiIndexedMap<>(hosting);
+        
+        String indexedResult = indexedHosting.filter(EntryFilter.valueIs("aws.amazon.com"))
+                .map(entry -> entry.getValue())
+                .collect(Collectors.joining());
+
+        System.out.println("With an inverse index : Value -> Keys: " + indexedHosting.keysOf("aws.amazon.com") + " " + indexedResult);
+        
+        Map<Integer, String> indexedCollect = indexedHosting.filter(EntryFilter.keyIs(2))
+                .collect(Collectors.toMap(entry -> entry.getKey(), entry -> entry.getValue()));
+
+        System.out.println("With a forward index : Key -> Map: " + indexedCollect); //output : {2=heroku.com}
 	}
 	
 	public static void filteringAStream() {
@@ -466,6 +661,32 @@ public class Java8Examples {
 		Optional<Person> oldest = persons.stream()
 						.collect(Collectors.maxBy(Comparator.comparing(Person::getAge)));
 		System.out.println(oldest.isPresent() ? oldest.get().getAge() : -1);
+		
+		// Each query above scans the whole list. With hash indexes on name and name+age and a sorted index on age,
+		// the same lookups go straight to the matching bucket
+		Attribute<Person, String> nameAttribute = Attribute.of("name", Person::getName);
+		Attribute<Person, Integer> ageAttribute = Attribute.of("age", Person::getAge);
+		IndexedCollection<Person> indexedPersons = new IndexedCollection<Person>()
+				.addHashIndex(nameAttribute)
+				.addHashIndex(Attribute.composite(nameAttribute, ageAttribute))
+				.addSortedIndex(ageAttribute);
+		indexedPersons.addAll(persons);
+		
+		Query<Person> michael21 = Query.and(Query.equal(nameAttribute, "michael"), Query.equal(ageAttribute, 21));
+		System.out.println(indexedPersons.explain(michael21) + " : " + indexedPersons.findAny(michael21).orElse(null));
+		System.out.println(indexedPersons.max(ageAttribute).map(Person::getAge).orElse(-1));
+		
+		// The filter() and map() chains compiled once into a single loop, then run like the streams above
+		CompiledPipeline<String, String> notMkyong = Pipeline.<String>start()
+				.filter(line -> !"mkyong".equals(line))
+				.compile();
+		System.out.println(notMkyong.toList(lines));				//output : [spring, node]
+		
+		CompiledPipeline<Person, String> michaelsName = Pipeline.<Person>start()
+				.filter(x -> "michael".equals(x.getName()))
+				.map(Person::getName)
+				.compile();
+		System.out.println(michaelsName.findFirst(persons).orElse(""));	//output : michael
 	}
 
 	public static void flatMap() {
@@ -545,6 +766,33 @@ public class Java8Examples {
 
         collect.forEach(x -> System.out.println(x));
         
+        // Under parallel() an ordered distinct() has to buffer to keep encounter order. When the order does not matter,
+        // dedupe through a concurrent sharded set instead, or only estimate the number of unique books
+        List<String> unordered = DistinctCollectors.distinct(list.parallelStream()
+                        .map(x -> x.getBook())
+                        .flatMap(x -> x.stream()))
+                        .collect(Collectors.toList());
+
+        System.out.println(unordered.size() + " unique books, about " + list.parallelStream()
+                        .map(x -> x.getBook())
+                        .flatMap(x -> x.stream())
+                        .collect(DistinctCollectors.approxDistinctCount(0.01)));
+        
+        // Which stage costs what: the same pipeline with every stage measured. Pass -Djava8app.profile=timing or
+        // =allocations to switch it on; when off, the profiler hands back the lambdas unchanged
+        StreamProfiler profiler = StreamProfiler.fromSystemProperty();
+        List<String> profiled = profiler.probe("distinct", list.parallelStream()
+                        .map(profiler.map("getBook", x -> x.getBook()))
+                        .flatMap(profiler.flatMap("stream", x -> x.stream()))
+                        .distinct())
+                        .collect(profiler.collector("toList", Collectors.toList()));
+
+        System.out.println(profiled.size() + " unique books");
+        if (profiler.isEnabled()) {
+        	System.out.print(profiler.report());
+        	System.out.println(profiler.toJson());
+        }
+        
         // 3. Stream + Primitive + flatMapToInt
         int[] intArray = {1, 2, 3, 4, 5, 6};
 
@@ -571,7 +819,19 @@ public class Java8Examples {
 		System.out.println("Time taken for parallel range : " + (end - start));
 	}
 	
+	public static void performanceScalingStudy(){
+		
+		// Same sum, but each kernel (LongStream, Stream<Long>, RecursiveTask) runs in dedicated ForkJoinPools of 1..N workers
+		// with warm-up, and prints a speedup/efficiency table with the allocated bytes per op
+		new RangeSumScaling(100000000, Runtime.getRuntime().availableProcessors(), 5, 10).run();
+	}
+	
 	public static void main(String[] args) {
+		// With arguments, run the demo pipelines on generated datasets instead, e.g. --rows 10000000 --skew 1.2; see --help
+		if (args.length > 0) {
+			ScenarioRunner.main(args);
+			return;
+		}
 		//sortMapByKeyByAndValue();
 		//convertStreamToList();
 		//groupingByOnStreams();
@@ -583,5 +843,6 @@ public class Java8Examples {
 		//convertListToMap();
 		//filteringAMap();
 		performanceBenchMarking();
+		//performanceScalingStudy();
 	}
 }
@@ -0,0 +1,359 @@
+package java8app.async;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// A stage for blocking steps, such as enriching records from a slow store, kept off the
+// ForkJoinPool that parallel() would block. The source is cut into batches. Each batch runs
+// on the pipeline's executor. At most `concurrency` batches run at once, and at most
+// `capacity` batches are taken from the source before the consumer has drained them. The
+// source is pulled only as the output is consumed, so a slow consumer holds back the source
+// rather than filling the heap. Output keeps the encounter order unless unordered() is set;
+// unordered output hands each batch over as soon as it completes.
+//
+//     try (AsyncPipeline<Hosting, String> enrich = AsyncPipeline.map(store::lookup)
+//             .batchSize(32).concurrency(64).build()) {
+//         List<String> names = enrich.collect(hostings.stream(), Collectors.toList());
+//     }
+//
+// Batches run on virtual threads when the runtime has them (Java 21 and later). Otherwise
+// they run on a fixed pool of `concurrency` daemon threads.
+public final class AsyncPipeline<T, R> implements AutoCloseable {
+
+	private final Function<List<T>, List<R>> step;
+	private final int batchSize;
+	private final int capacity;
+	private final boolean ordered;
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+	private final boolean virtualThreads;
+	private final Semaphore running;
+
+	private AsyncPipeline(Builder<T, R> builder) {
+		this.step = builder.step;
+		this.batchSize = builder.batchSize;
+		this.capacity = builder.capacity < 0 ? 2 * builder.concurrency : Math.max(builder.capacity, builder.concurrency);
+		this.ordered = builder.ordered;
+		this.running = new Semaphore(builder.concurrency);
+		if (builder.executor != null) {
+			this.executor = builder.executor;
+			this.ownsExecutor = false;
+			this.virtualThreads = false;
+		} else {
+			ExecutorService virtual = builder.virtualThreads ? virtualThreadExecutor() : null;
+			this.executor = virtual != null ? virtual : fixedPool(builder.concurrency);
+			this.ownsExecutor = true;
+			this.virtualThreads = virtual != null;
+		}
+	}
+
+	// A blocking step applied to every element; the elements of a batch run one after another.
+	public static <T, R> Builder<T, R> map(Function<? super T, ? extends R> step) {
+		return new Builder<>(batch -> {
+			List<R> out = new ArrayList<>(batch.size());
+			for (T t : batch) {
+				out.add(step.apply(t));
+			}
+			return out;
+		});
+	}
+
+	// A blocking step applied to a whole batch, for stores with a bulk lookup. The result may
+	// hold any number of elements.
+	@SuppressWarnings("unchecked")
+	public static <T, R> Builder<T, R> mapBatch(Function<? super List<T>, ? extends List<? extends R>> step) {
+		return new Builder<>(batch -> (List<R>) step.apply(batch));
+	}
+
+	public boolean usesVirtualThreads() {
+		return virtualThreads;
+	}
+
+	// Lazy and sequential; batches are submitted as the stream is consumed. Closing the stream
+	// cancels the batches still in flight.
+	public Stream<R> apply(Stream<? extends T> source) {
+		Window window = new Window(source.iterator());
+		int characteristics = ordered ? Spliterator.ORDERED : 0;
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(window, characteristics), false)
+				.onClose(window::cancel)
+				.onClose(source::close);
+	}
+
+	public <A, RR> RR collect(Stream<? extends T> source, Collector<? super R, A, RR> collector) {
+		try (Stream<R> results = apply(source)) {
+			return results.collect(collector);
+		}
+	}
+
+	// The action runs on the calling thread, so it needs no synchronization.
+	public void forEach(Stream<? extends T> source, Consumer<? super R> action) {
+		try (Stream<R> results = apply(source)) {
+			results.forEach(action);
+		}
+	}
+
+	// Shuts down the executor unless it was passed in. It does not cancel the batches of result
+	// streams that are still open: those batches finish, and the next batch such a stream
+	// submits is rejected. Close the streams first to cancel their batches; collect() and
+	// forEach() close theirs.
+	@Override
+	public void close() {
+		if (ownsExecutor) {
+			executor.shutdown();
+		}
+	}
+
+	private static ExecutorService virtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static ExecutorService fixedPool(int threads) {
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(threads, task -> {
+			Thread thread = new Thread(task, "async-pipeline-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	// The batches taken from the source and not yet handed to the consumer. Ordered output
+	// waits on the oldest batch; unordered output takes whichever completes first.
+	//
+	// The consumer thread takes a permit for every batch before submitting it, so at most
+	// `concurrency` batches are queued or running in the executor and none of its threads ever
+	// waits for a permit. That matters when the executor is a ForkJoinPool. The permit comes
+	// back when the batch is done, including when it is cancelled before it starts.
+	private final class Window implements Iterator<R> {
+
+		private final Iterator<? extends T> source;
+		private final ArrayDeque<Batch> pending = new ArrayDeque<>();
+		private final BlockingQueue<Batch> completed;
+		private final Set<Batch> inFlight;
+		private Iterator<R> current = Collections.emptyIterator();
+
+		Window(Iterator<? extends T> source) {
+			this.source = source;
+			this.completed = ordered ? null : new LinkedBlockingQueue<>();
+			this.inFlight = ordered ? null : Collections.newSetFromMap(new IdentityHashMap<>());
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (!current.hasNext()) {
+				fill();
+				if (size() == 0) {
+					return false;
+				}
+				current = next(ordered ? pending.poll() : take()).iterator();
+			}
+			return true;
+		}
+
+		@Override
+		public R next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return current.next();
+		}
+
+		void cancel() {
+			Iterable<Batch> batches = ordered ? pending : inFlight;
+			for (Batch batch : batches) {
+				batch.cancel(true);
+			}
+			if (ordered) {
+				pending.clear();
+			} else {
+				inFlight.clear();
+			}
+		}
+
+		private int size() {
+			return ordered ? pending.size() : inFlight.size();
+		}
+
+		// Whether a batch can be handed to the consumer without waiting.
+		private boolean ready() {
+			return ordered ? !pending.isEmpty() && pending.peek().isDone() : !completed.isEmpty();
+		}
+
+		// Submits batches until the window is full. When all permits are taken, it waits for
+		// one only if no finished batch is waiting for the consumer.
+		private void fill() {
+			while (size() < capacity && source.hasNext()) {
+				if (!running.tryAcquire()) {
+					if (ready()) {
+						return;
+					}
+					try {
+						running.acquire();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						cancel();
+						throw new CompletionException(e);
+					}
+				}
+				List<T> items = new ArrayList<>(batchSize);
+				while (items.size() < batchSize && source.hasNext()) {
+					items.add(source.next());
+				}
+				Batch batch = new Batch(items, completed);
+				if (ordered) {
+					pending.add(batch);
+				} else {
+					inFlight.add(batch);
+				}
+				try {
+					executor.execute(batch);
+				} catch (RuntimeException e) {
+					batch.cancel(false);
+					cancel();
+					throw e;
+				}
+			}
+		}
+
+		private Batch take() {
+			try {
+				Batch batch = completed.take();
+				inFlight.remove(batch);
+				return batch;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				cancel();
+				throw new CompletionException(e);
+			}
+		}
+
+		// The first failing batch cancels the rest; its exception is rethrown as is when unchecked.
+		private List<R> next(Batch batch) {
+			try {
+				return batch.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				cancel();
+				throw new CompletionException(e);
+			} catch (ExecutionException e) {
+				cancel();
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new CompletionException(cause);
+			}
+		}
+	}
+
+	// One batch; done() runs once however the batch ends, so it returns the permit and, for
+	// unordered output, queues the batch for the consumer.
+	private final class Batch extends FutureTask<List<R>> {
+
+		private final BlockingQueue<Batch> completed;
+
+		Batch(List<T> items, BlockingQueue<Batch> completed) {
+			super(() -> step.apply(items));
+			this.completed = completed;
+		}
+
+		@Override
+		protected void done() {
+			running.release();
+			if (completed != null) {
+				completed.add(this);
+			}
+		}
+	}
+
+	public static final class Builder<T, R> {
+
+		private final Function<List<T>, List<R>> step;
+		private int batchSize = 64;
+		private int concurrency = Math.max(4, Runtime.getRuntime().availableProcessors());
+		private int capacity = -1;
+		private boolean ordered = true;
+		private boolean virtualThreads = true;
+		private ExecutorService executor;
+
+		private Builder(Function<List<T>, List<R>> step) {
+			this.step = step;
+		}
+
+		public Builder<T, R> batchSize(int batchSize) {
+			if (batchSize < 1) {
+				throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+			}
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		// Batches running at once, and the size of the pool when there are no virtual threads.
+		public Builder<T, R> concurrency(int concurrency) {
+			if (concurrency < 1) {
+				throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+			}
+			this.concurrency = concurrency;
+			return this;
+		}
+
+		// Batches taken from the source and not yet consumed; at least the concurrency,
+		// twice the concurrency by default.
+		public Builder<T, R> capacity(int capacity) {
+			if (capacity < 1) {
+				throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+			}
+			this.capacity = capacity;
+			return this;
+		}
+
+		public Builder<T, R> unordered() {
+			this.ordered = false;
+			return this;
+		}
+
+		// Keeps the fixed pool even where virtual threads are available.
+		public Builder<T, R> platformThreads() {
+			this.virtualThreads = false;
+			return this;
+		}
+
+		// Runs the batches on the given executor, which close() leaves running.
+		public Builder<T, R> executor(ExecutorService executor) {
+			this.executor = executor;
+			return this;
+		}
+
+		public AsyncPipeline<T, R> build() {
+			return new AsyncPipeline<>(this);
+		}
+	}
+}
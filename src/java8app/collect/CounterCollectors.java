@@ -0,0 +1,60 @@
+package java8app.collect;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+// Allocation-free replacements for groupingBy(classifier, counting()) and
+// groupingBy(classifier, summingInt(mapper)). The accumulators update primitive slots of an
+// ObjLongCounterMap / ObjIntCounterMap in place; parallel streams combine the per-split maps
+// by adding counts.
+public final class CounterCollectors {
+
+	private CounterCollectors() {
+	}
+
+	public static <T, K> Collector<T, ?, ObjLongCounterMap<K>> counting(Function<? super T, ? extends K> classifier) {
+		return Collector.of(
+				ObjLongCounterMap::new,
+				(map, t) -> map.increment(classifier.apply(t)),
+				ObjLongCounterMap::merge,
+				Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+	}
+
+	public static <T, K> Collector<T, ?, ObjLongCounterMap<K>> summingLong(Function<? super T, ? extends K> classifier,
+			ToLongFunction<? super T> mapper) {
+		return Collector.of(
+				ObjLongCounterMap::new,
+				(map, t) -> map.add(classifier.apply(t), mapper.applyAsLong(t)),
+				ObjLongCounterMap::merge,
+				Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+	}
+
+	public static <T, K> Collector<T, ?, ObjIntCounterMap<K>> summingInt(Function<? super T, ? extends K> classifier,
+			ToIntFunction<? super T> mapper) {
+		return Collector.of(
+				ObjIntCounterMap::new,
+				(map, t) -> map.add(classifier.apply(t), mapper.applyAsInt(t)),
+				ObjIntCounterMap::merge,
+				Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+	}
+
+	// counting(classifier) followed by the "count desc, then key asc" sort of groupingAndSortingOnStream().
+	public static <T, K extends Comparable<? super K>> Collector<T, ?, LinkedHashMap<K, Long>> countingSortedByCount(
+			Function<? super T, ? extends K> classifier) {
+		return countingSortedByCount(classifier, Comparator.<K>naturalOrder());
+	}
+
+	public static <T, K> Collector<T, ?, LinkedHashMap<K, Long>> countingSortedByCount(
+			Function<? super T, ? extends K> classifier, Comparator<? super K> keyOrder) {
+		return Collector.of(
+				ObjLongCounterMap<K>::new,
+				(map, t) -> map.increment(classifier.apply(t)),
+				ObjLongCounterMap::merge,
+				map -> map.sortedByCount(keyOrder),
+				Collector.Characteristics.UNORDERED);
+	}
+}
@@ -0,0 +1,68 @@
+package java8app.collect;
+
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import java8app.sketch.HyperLogLog;
+
+// Distinct for large, parallel flatMap pipelines such as the unique book titles of flatMap().
+// Stream.distinct() on an ordered parallel stream has to buffer and keep encounter order;
+// these drop the order and dedupe through a ShardedConcurrentSet, so worker threads neither
+// wait for each other nor for earlier splits. approxDistinctCount() only estimates the number
+// of distinct elements, in a fixed few kilobytes, for when the set itself is not needed.
+public final class DistinctCollectors {
+
+	private DistinctCollectors() {
+	}
+
+	// Unordered distinct stage: distinct(stream) behaves like stream.unordered().distinct().
+	public static <T> Stream<T> distinct(Stream<T> stream) {
+		return stream.unordered().filter(firstSeen());
+	}
+
+	// Predicate that is true the first time it sees each element; safe to share across threads.
+	public static <T> Predicate<T> firstSeen() {
+		Set<T> seen = new ShardedConcurrentSet<>();
+		return seen::add;
+	}
+
+	// CONCURRENT collector into a ShardedConcurrentSet: under .parallel() all threads add to the
+	// one set instead of building per-split sets and merging them.
+	public static <T> Collector<T, ?, Set<T>> toConcurrentSet() {
+		return Collector.<T, Set<T>>of(
+				ShardedConcurrentSet::new,
+				Set::add,
+				(left, right) -> {
+					left.addAll(right);
+					return left;
+				},
+				Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED,
+				Collector.Characteristics.IDENTITY_FINISH);
+	}
+
+	// Estimated number of distinct elements, with the given relative standard error
+	// (e.g. 0.01 for 1%). Mergeable, so it works under .parallel().
+	public static <T> Collector<T, ?, Long> approxDistinctCount(double relativeError) {
+		int precision = HyperLogLog.precisionFor(relativeError);
+		return Collector.<T, HyperLogLog, Long>of(
+				() -> new HyperLogLog(precision),
+				HyperLogLog::add,
+				HyperLogLog::merge,
+				HyperLogLog::estimate,
+				Collector.Characteristics.UNORDERED);
+	}
+
+	public static <T, R> Collector<T, ?, Long> approxDistinctCount(double relativeError,
+			Function<? super T, ? extends R> mapper) {
+		int precision = HyperLogLog.precisionFor(relativeError);
+		return Collector.<T, HyperLogLog, Long>of(
+				() -> new HyperLogLog(precision),
+				(hll, t) -> hll.add(mapper.apply(t)),
+				HyperLogLog::merge,
+				HyperLogLog::estimate,
+				Collector.Characteristics.UNORDERED);
+	}
+}
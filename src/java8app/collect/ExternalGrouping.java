@@ -0,0 +1,323 @@
+package java8app.collect;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+import java8app.io.RecordCodec;
+
+// groupingBy() for inputs whose groups do not fit in the heap, as in groupingByOnStreams() and
+// groupCountMappingOnStreams() run over a large dataset:
+//
+//     try (ExternalGroups<Double, List<Item>> byPrice = items.parallel().collect(
+//             ExternalGrouping.builder(RecordCodecs.ITEM).memoryBudget(256 << 20).groupingBy(Item::getPrice))) {
+//         byPrice.forEach((price, list) -> ...);
+//     }
+//
+// Elements are buffered until the estimated bytes held by all containers of the collect() call
+// exceed the budget. The container that crosses it then writes its buffer to temporary files,
+// one per partition of the key hash, and clears it. Each partition is later read back and
+// grouped on its own with the downstream collector, so the heap only has to hold the groups
+// of one partition per aggregating thread. Encounter order within a group is kept, as
+// groupingBy() does. When nothing was spilled the groups are built in memory as usual.
+//
+// A partition is the unit of memory: many distinct keys spread well, but a single group whose
+// downstream result is larger than the heap cannot be helped by partitioning.
+public final class ExternalGrouping {
+
+	private ExternalGrouping() {
+	}
+
+	public static <T> Builder<T> builder(RecordCodec<T> codec) {
+		return new Builder<>(codec);
+	}
+
+	public static final class Builder<T> {
+
+		private final RecordCodec<T> codec;
+		private long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+		private ToLongFunction<? super T> sizer = t -> 64;
+		private int partitions = 64;
+		private Path directory = Paths.get(System.getProperty("java.io.tmpdir"));
+
+		private Builder(RecordCodec<T> codec) {
+			this.codec = Objects.requireNonNull(codec);
+		}
+
+		// Estimated heap bytes of buffered elements above which buffers are spilled.
+		public Builder<T> memoryBudget(long bytes) {
+			if (bytes <= 0) {
+				throw new IllegalArgumentException("memoryBudget must be positive");
+			}
+			this.memoryBudget = bytes;
+			return this;
+		}
+
+		// Estimated heap bytes of one element, including the element itself; 64 by default.
+		public Builder<T> sizer(ToLongFunction<? super T> sizer) {
+			this.sizer = Objects.requireNonNull(sizer);
+			return this;
+		}
+
+		// Number of spill partitions, rounded up to a power of two.
+		public Builder<T> partitions(int partitions) {
+			if (partitions <= 0) {
+				throw new IllegalArgumentException("partitions must be positive");
+			}
+			this.partitions = partitions == 1 ? 1 : Integer.highestOneBit(partitions - 1) << 1;
+			return this;
+		}
+
+		// Directory for the spill files; java.io.tmpdir by default.
+		public Builder<T> directory(Path directory) {
+			this.directory = Objects.requireNonNull(directory);
+			return this;
+		}
+
+		public <K> Collector<T, ?, ExternalGroups<K, List<T>>> groupingBy(Function<? super T, ? extends K> classifier) {
+			return groupingBy(classifier, Collectors.toList());
+		}
+
+		public <K, A, D> Collector<T, ?, ExternalGroups<K, D>> groupingBy(Function<? super T, ? extends K> classifier,
+				Collector<? super T, A, D> downstream) {
+			return new Spill<>(this, classifier, downstream);
+		}
+	}
+
+	// Settings of one collector. Budget and spill files are tracked per collect() call: the
+	// stream asks for the supplier once per collect, and every supplier hands out containers
+	// that share a new Scope, so collects that reuse one collector instance, even concurrently,
+	// do not share a budget.
+	private static final class Spill<T, K, A, D> implements Collector<T, Container<T>, ExternalGroups<K, D>> {
+
+		final RecordCodec<T> codec;
+		final long memoryBudget;
+		// Containers only spill buffers of at least this size, which bounds the number of files
+		// small containers of a parallel stream create.
+		final long minSpill;
+		final ToLongFunction<? super T> sizer;
+		final int partitions;
+		final Path directory;
+		final Function<? super T, ? extends K> classifier;
+		final Collector<? super T, A, D> downstream;
+
+		Spill(Builder<T> builder, Function<? super T, ? extends K> classifier, Collector<? super T, A, D> downstream) {
+			this.codec = builder.codec;
+			this.memoryBudget = builder.memoryBudget;
+			this.minSpill = Math.max(1, builder.memoryBudget / 16);
+			this.sizer = builder.sizer;
+			this.partitions = builder.partitions;
+			this.directory = builder.directory;
+			this.classifier = Objects.requireNonNull(classifier);
+			this.downstream = Objects.requireNonNull(downstream);
+		}
+
+		@Override
+		public Supplier<Container<T>> supplier() {
+			Scope scope = new Scope();
+			return () -> new Container<>(partitions, scope);
+		}
+
+		@Override
+		public BiConsumer<Container<T>, T> accumulator() {
+			return this::accumulate;
+		}
+
+		@Override
+		public BinaryOperator<Container<T>> combiner() {
+			return this::combine;
+		}
+
+		@Override
+		public Function<Container<T>, ExternalGroups<K, D>> finisher() {
+			return this::finish;
+		}
+
+		@Override
+		public Set<Collector.Characteristics> characteristics() {
+			return Collections.emptySet();
+		}
+
+		void accumulate(Container<T> container, T t) {
+			long bytes = sizer.applyAsLong(t);
+			container.buffer.add(t);
+			container.bufferedBytes += bytes;
+			if (container.scope.buffered.addAndGet(bytes) > memoryBudget && container.bufferedBytes >= minSpill) {
+				spill(container);
+			}
+		}
+
+		// Appends right's elements after left's. If right spilled, left's buffer is spilled first
+		// so that its elements stay in front of right's files. The merged buffer is spilled when
+		// the collect is over budget: leaves of a parallel stream may each stay below minSpill,
+		// and without this their merged buffers would reach finish() whatever their size.
+		Container<T> combine(Container<T> left, Container<T> right) {
+			if (right.files != null) {
+				spill(left);
+				for (int p = 0; p < partitions; p++) {
+					left.files.get(p).addAll(right.files.get(p));
+				}
+				left.spilledBytes += right.spilledBytes;
+			}
+			left.buffer.addAll(right.buffer);
+			left.bufferedBytes += right.bufferedBytes;
+			if (left.scope.buffered.get() > memoryBudget) {
+				spill(left);
+			}
+			return left;
+		}
+
+		ExternalGroups<K, D> finish(Container<T> container) {
+			if (container.files == null) {
+				container.scope.buffered.addAndGet(-container.bufferedBytes);
+				Map<K, A> groups = new HashMap<>();
+				BiConsumer<A, ? super T> accumulator = downstream.accumulator();
+				for (T t : container.buffer) {
+					accumulator.accept(groups.computeIfAbsent(key(t), k -> downstream.supplier().get()), t);
+				}
+				return new ExternalGroups<>(ExternalGroups.finish(groups, downstream));
+			}
+			spill(container);
+			return new ExternalGroups<>(container.files, container.spilledBytes, codec, this::key, downstream);
+		}
+
+		K key(T t) {
+			return Objects.requireNonNull(classifier.apply(t), "element cannot be mapped to a null key");
+		}
+
+		// Appends the buffer to the container's last file of every partition; a container that
+		// has taken over another's files (see combine) starts new ones. If writing fails, for an
+		// IO error or an exception from the codec or the classifier, every spill file of the
+		// collect is deleted before the exception propagates.
+		private void spill(Container<T> container) {
+			if (container.files == null) {
+				container.files = emptyFiles();
+			}
+			if (container.buffer.isEmpty()) {
+				return;
+			}
+			DataOutputStream[] out = new DataOutputStream[partitions];
+			try {
+				try {
+					for (T t : container.buffer) {
+						int p = Hashing.spread(key(t).hashCode()) & (partitions - 1);
+						if (out[p] == null) {
+							out[p] = open(container, p);
+						}
+						out[p].writeByte(1);
+						codec.write(out[p], t);
+					}
+				} finally {
+					for (DataOutputStream partition : out) {
+						if (partition != null) {
+							container.spilledBytes += partition.size();
+							partition.close();
+						}
+					}
+				}
+			} catch (IOException e) {
+				container.scope.abort();
+				throw new UncheckedIOException(e);
+			} catch (RuntimeException | Error e) {
+				container.scope.abort();
+				throw e;
+			}
+			container.scope.buffered.addAndGet(-container.bufferedBytes);
+			container.bufferedBytes = 0;
+			container.buffer = new ArrayList<>();
+		}
+
+		private DataOutputStream open(Container<T> container, int p) throws IOException {
+			List<Path> files = container.files.get(p);
+			Path last = container.owned[p];
+			if (last == null || files.isEmpty() || files.get(files.size() - 1) != last) {
+				last = container.scope.createFile(directory);
+				files.add(last);
+				container.owned[p] = last;
+			}
+			return new DataOutputStream(new BufferedOutputStream(
+					Files.newOutputStream(last, StandardOpenOption.APPEND), 1 << 14));
+		}
+
+		private List<List<Path>> emptyFiles() {
+			List<List<Path>> files = new ArrayList<>(partitions);
+			for (int p = 0; p < partitions; p++) {
+				files.add(new ArrayList<>());
+			}
+			return files;
+		}
+	}
+
+	// State of one collect() call: the bytes buffered by all of its containers and the spill
+	// files they created. Files of a successful collect are owned by the ExternalGroups result
+	// from then on. An exception thrown upstream of the collector never reaches it, so such a
+	// failure leaves the files of the spills done so far in the spill directory.
+	private static final class Scope {
+
+		final AtomicLong buffered = new AtomicLong();
+		private final Queue<Path> files = new ConcurrentLinkedQueue<>();
+		private volatile boolean aborted;
+
+		Path createFile(Path directory) throws IOException {
+			Path file = Files.createTempFile(directory, "group-", ".spill");
+			files.add(file);
+			if (aborted) {
+				abort();
+				throw new IllegalStateException("Another spill of this collect failed");
+			}
+			return file;
+		}
+
+		// Deletes every file created so far, and those created by spills still running.
+		void abort() {
+			aborted = true;
+			Path file;
+			while ((file = files.poll()) != null) {
+				try {
+					Files.deleteIfExists(file);
+				} catch (IOException e) {
+					// left behind in the spill directory
+				}
+			}
+		}
+	}
+
+	private static final class Container<T> {
+
+		final Scope scope;
+		List<T> buffer = new ArrayList<>();
+		long bufferedBytes;
+		// Spill files per partition in encounter order; null until the first spill.
+		List<List<Path>> files;
+		// Per partition, the file this container created last and may still append to.
+		final Path[] owned;
+		long spilledBytes;
+
+		Container(int partitions, Scope scope) {
+			this.owned = new Path[partitions];
+			this.scope = scope;
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package java8app.collect;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import java8app.io.RecordCodec;
+
+// Result of an ExternalGrouping collector. When the input was spilled, groups are built one
+// partition at a time while they are consumed: stream() is lazy, and parallel() on it groups
+// several partitions at once; forEach() and toMap() group all partitions in parallel. Every
+// consumption reads the spill files again. close() deletes them.
+public final class ExternalGroups<K, D> implements AutoCloseable {
+
+	private final Map<K, D> groups;
+	private final List<List<Path>> partitions;
+	private final long spilledBytes;
+	private final Partition<K, D> partition;
+
+	ExternalGroups(Map<K, D> groups) {
+		this.groups = groups;
+		this.partitions = Collections.emptyList();
+		this.spilledBytes = 0;
+		this.partition = null;
+	}
+
+	<T, A> ExternalGroups(List<List<Path>> partitions, long spilledBytes, RecordCodec<T> codec,
+			Function<? super T, ? extends K> classifier, Collector<? super T, A, D> downstream) {
+		this.groups = null;
+		this.partitions = partitions;
+		this.spilledBytes = spilledBytes;
+		this.partition = files -> group(files, codec, classifier, downstream);
+	}
+
+	public boolean isSpilled() {
+		return groups == null;
+	}
+
+	// Encoded bytes written to the spill files.
+	public long spilledBytes() {
+		return spilledBytes;
+	}
+
+	public Stream<Map.Entry<K, D>> stream() {
+		if (groups != null) {
+			return groups.entrySet().stream();
+		}
+		return IntStream.range(0, partitions.size()).boxed()
+				.flatMap(p -> partition.group(partitions.get(p)).entrySet().stream());
+	}
+
+	// Called concurrently from the threads grouping the partitions.
+	public void forEach(BiConsumer<? super K, ? super D> action) {
+		if (groups != null) {
+			groups.forEach(action);
+			return;
+		}
+		IntStream.range(0, partitions.size()).parallel()
+				.forEach(p -> partition.group(partitions.get(p)).forEach(action));
+	}
+
+	// All groups in one map, equal to the groupingBy() result.
+	public Map<K, D> toMap() {
+		if (groups != null) {
+			return groups;
+		}
+		Map<K, D> all = new HashMap<>();
+		IntStream.range(0, partitions.size()).parallel()
+				.mapToObj(p -> partition.group(partitions.get(p)))
+				.forEachOrdered(all::putAll);
+		return all;
+	}
+
+	@Override
+	public void close() {
+		for (List<Path> files : partitions) {
+			for (Path file : files) {
+				try {
+					Files.deleteIfExists(file);
+				} catch (IOException e) {
+					// left behind in the temporary directory
+				}
+			}
+		}
+	}
+
+	static <K, A, D> Map<K, D> finish(Map<K, A> groups, Collector<?, A, D> downstream) {
+		if (downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+			@SuppressWarnings("unchecked")
+			Map<K, D> identity = (Map<K, D>) groups;
+			return identity;
+		}
+		Map<K, D> finished = new HashMap<>(groups.size() * 2);
+		groups.forEach((key, container) -> finished.put(key, downstream.finisher().apply(container)));
+		return finished;
+	}
+
+	private static <T, K, A, D> Map<K, D> group(List<Path> files, RecordCodec<T> codec,
+			Function<? super T, ? extends K> classifier, Collector<? super T, A, D> downstream) {
+		Map<K, A> groups = new HashMap<>();
+		BiConsumer<A, ? super T> accumulator = downstream.accumulator();
+		for (Path file : files) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+				// every record is preceded by a 1 byte, so end of file shows up as -1
+				while (in.read() == 1) {
+					T t = codec.read(in);
+					accumulator.accept(groups.computeIfAbsent(classifier.apply(t), k -> downstream.supplier().get()), t);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return finish(groups, downstream);
+	}
+
+	private interface Partition<K, D> {
+
+		Map<K, D> group(List<Path> files);
+	}
+}
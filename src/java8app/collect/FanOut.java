@@ -0,0 +1,156 @@
+package java8app.collect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+// Feeds several collectors from one traversal, so a source that can only be read once (see
+// streamCannotBeReused()) or that is expensive to read answers all of its queries in a single
+// pass. Each element is passed to every downstream accumulator; under .parallel() the
+// per-split containers are combined collector by collector.
+//
+//     FanOut.Builder<Item> queries = FanOut.builder();
+//     FanOut.Handle<Long> count = queries.add(Collectors.counting());
+//     FanOut.Handle<Integer> qty = queries.add(Collectors.summingInt(Item::getQty));
+//     FanOut.Results results = Stream.of(items).collect(queries.build());
+//     results.get(count); results.get(qty);
+public final class FanOut {
+
+	private FanOut() {
+	}
+
+	public static <T> Builder<T> builder() {
+		return new Builder<>();
+	}
+
+	// Two collectors merged into one result, like Collectors.teeing in later JDKs.
+	public static <T, R1, R2, R> Collector<T, ?, R> teeing(Collector<? super T, ?, R1> first,
+			Collector<? super T, ?, R2> second, BiFunction<? super R1, ? super R2, R> merger) {
+		Builder<T> builder = builder();
+		Handle<R1> h1 = builder.add(first);
+		Handle<R2> h2 = builder.add(second);
+		Collector<T, ?, Results> both = builder.build();
+		return collectingAndThen(both, results -> merger.apply(results.get(h1), results.get(h2)));
+	}
+
+	private static <T, A, R, RR> Collector<T, A, RR> collectingAndThen(Collector<T, A, R> collector,
+			Function<R, RR> then) {
+		Set<Collector.Characteristics> characteristics = EnumSet.noneOf(Collector.Characteristics.class);
+		if (collector.characteristics().contains(Collector.Characteristics.UNORDERED)) {
+			characteristics.add(Collector.Characteristics.UNORDERED);
+		}
+		return Collector.of(collector.supplier(), collector.accumulator(), collector.combiner(),
+				collector.finisher().andThen(then),
+				characteristics.toArray(new Collector.Characteristics[0]));
+	}
+
+	// Typed key of one downstream result.
+	public static final class Handle<R> {
+
+		private final Builder<?> owner;
+		private final int index;
+
+		private Handle(Builder<?> owner, int index) {
+			this.owner = owner;
+			this.index = index;
+		}
+	}
+
+	public static final class Builder<T> {
+
+		private final List<Collector<? super T, Object, Object>> collectors = new ArrayList<>();
+
+		private Builder() {
+		}
+
+		@SuppressWarnings("unchecked")
+		public <R> Handle<R> add(Collector<? super T, ?, R> collector) {
+			collectors.add((Collector<? super T, Object, Object>) collector);
+			return new Handle<>(this, collectors.size() - 1);
+		}
+
+		// The collector snapshot taken here is unaffected by later add() calls.
+		public Collector<T, ?, Results> build() {
+			int n = collectors.size();
+			@SuppressWarnings("unchecked")
+			Supplier<Object>[] suppliers = (Supplier<Object>[]) new Supplier<?>[n];
+			@SuppressWarnings("unchecked")
+			BiConsumer<Object, ? super T>[] accumulators = (BiConsumer<Object, ? super T>[]) new BiConsumer<?, ?>[n];
+			@SuppressWarnings("unchecked")
+			BinaryOperator<Object>[] combiners = (BinaryOperator<Object>[]) new BinaryOperator<?>[n];
+			@SuppressWarnings("unchecked")
+			Function<Object, Object>[] finishers = (Function<Object, Object>[]) new Function<?, ?>[n];
+			boolean unordered = true;
+			for (int i = 0; i < n; i++) {
+				Collector<? super T, Object, Object> collector = collectors.get(i);
+				suppliers[i] = collector.supplier();
+				accumulators[i] = collector.accumulator();
+				combiners[i] = collector.combiner();
+				finishers[i] = collector.finisher();
+				unordered &= collector.characteristics().contains(Collector.Characteristics.UNORDERED);
+			}
+			Collector.Characteristics[] characteristics = unordered
+					? new Collector.Characteristics[] {Collector.Characteristics.UNORDERED}
+					: new Collector.Characteristics[0];
+			return Collector.<T, Object[], Results>of(
+					() -> {
+						Object[] containers = new Object[n];
+						for (int i = 0; i < n; i++) {
+							containers[i] = suppliers[i].get();
+						}
+						return containers;
+					},
+					(containers, t) -> {
+						for (int i = 0; i < n; i++) {
+							accumulators[i].accept(containers[i], t);
+						}
+					},
+					(left, right) -> {
+						for (int i = 0; i < n; i++) {
+							left[i] = combiners[i].apply(left[i], right[i]);
+						}
+						return left;
+					},
+					containers -> {
+						Object[] results = new Object[n];
+						for (int i = 0; i < n; i++) {
+							results[i] = finishers[i].apply(containers[i]);
+						}
+						return new Results(this, results);
+					},
+					characteristics);
+		}
+	}
+
+	public static final class Results {
+
+		private final Builder<?> owner;
+		private final Object[] results;
+
+		private Results(Builder<?> owner, Object[] results) {
+			this.owner = owner;
+			this.results = results;
+		}
+
+		@SuppressWarnings("unchecked")
+		public <R> R get(Handle<R> handle) {
+			if (handle.owner != owner || handle.index >= results.length) {
+				throw new IllegalArgumentException("Handle was not added to the builder that produced these results");
+			}
+			return (R) results[handle.index];
+		}
+
+		public List<Object> asList() {
+			return Collections.unmodifiableList(Arrays.asList(results));
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package java8app.collect;
+
+import java8app.sketch.Hash64;
+
+// Sizing and hash spreading shared by the open-addressing tables in this package.
+final class Hashing {
+
+	// Tables are kept at most half full so that linear probe sequences stay short.
+	static final float LOAD_FACTOR = 0.5f;
+
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private Hashing() {
+	}
+
+	// Murmur3 finalizer (Hash64.mix), truncated: hashCodes of short strings and small ints
+	// cluster in the low bits.
+	static int spread(int h) {
+		return (int) Hash64.mix(h);
+	}
+
+	static int tableSize(int expectedSize, int minCapacity) {
+		long needed = (long) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR) + 1;
+		if (needed > MAX_CAPACITY) {
+			return MAX_CAPACITY;
+		}
+		int capacity = Integer.highestOneBit((int) needed - 1) << 1;
+		return Math.max(capacity, minCapacity);
+	}
+
+	// Tables at MAX_CAPACITY no longer grow; checkRoom() stops them from filling up.
+	static int resizeThreshold(int capacity) {
+		if (capacity >= MAX_CAPACITY) {
+			return Integer.MAX_VALUE;
+		}
+		return (int) (capacity * LOAD_FACTOR);
+	}
+
+	// Called before a new key is stored in a table of `size` keys. A full table would make the
+	// probe for an absent key loop forever, so one slot is always left free. Below
+	// MAX_CAPACITY the load factor keeps tables far from this limit.
+	static void checkRoom(int size, int capacity) {
+		if (size >= capacity - 1) {
+			throw new IllegalStateException("too many keys: " + size);
+		}
+	}
+}
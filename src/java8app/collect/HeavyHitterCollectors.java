@@ -0,0 +1,44 @@
+package java8app.collect;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+import java8app.sketch.HeavyHitters;
+
+// Approximate group-count for streams whose key space is too large to count exactly, such as
+// unbounded event streams. Memory is fixed by capacity and the Count-Min error settings;
+// parallel splits merge their sketches.
+public final class HeavyHitterCollectors {
+
+	// Defaults: overcount of at most 0.1% of all elements, with 99.9% probability, in about
+	// 150 KB of counters per partial sketch.
+	public static final double DEFAULT_EPSILON = 1e-3;
+	public static final double DEFAULT_DELTA = 1e-3;
+
+	private HeavyHitterCollectors() {
+	}
+
+	// The sketch itself, for callers that want bounds or further merging.
+	public static <T, K> Collector<T, ?, HeavyHitters<K>> heavyHitters(Function<? super T, ? extends K> classifier,
+			int capacity, double epsilon, double delta) {
+		return Collector.<T, HeavyHitters<K>>of(
+				() -> new HeavyHitters<>(capacity, epsilon, delta),
+				(sketch, t) -> sketch.add(classifier.apply(t)),
+				HeavyHitters::merge,
+				Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+	}
+
+	// Approximate top k keys as "count desc, then key asc". capacity counters are tracked; a
+	// capacity of several times k makes the top k, and their order, much more reliable.
+	public static <T, K extends Comparable<? super K>> Collector<T, ?, LinkedHashMap<K, Long>> topCounts(
+			Function<? super T, ? extends K> classifier, int k, int capacity) {
+		return Collector.<T, HeavyHitters<K>, LinkedHashMap<K, Long>>of(
+				() -> new HeavyHitters<>(capacity, DEFAULT_EPSILON, DEFAULT_DELTA),
+				(sketch, t) -> sketch.add(classifier.apply(t)),
+				HeavyHitters::merge,
+				sketch -> sketch.topCounts(k, Comparator.<K>naturalOrder()),
+				Collector.Characteristics.UNORDERED);
+	}
+}
@@ -0,0 +1,74 @@
+package java8app.collect;
+
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+
+// toMap() for int keys into an IntObjMap, as in convertListToMap() with Hosting::getId as
+// key. Duplicate keys are handled by an explicit policy or a merge function. Policies follow
+// encounter order in parallel streams too: KEEP_FIRST keeps the value of the earliest element.
+// The finisher moves the map to the dense layout when the collected ids allow it.
+public final class IntMapCollectors {
+
+	public enum OnDuplicate {
+		// IllegalStateException, as Collectors.toMap(keyMapper, valueMapper)
+		THROW,
+		KEEP_FIRST,
+		KEEP_LAST
+	}
+
+	private IntMapCollectors() {
+	}
+
+	public static <T, V> Collector<T, ?, IntObjMap<V>> toIntMap(ToIntFunction<? super T> keyMapper,
+			Function<? super T, ? extends V> valueMapper) {
+		return toIntMap(keyMapper, valueMapper, OnDuplicate.THROW);
+	}
+
+	public static <T, V> Collector<T, ?, IntObjMap<V>> toIntMap(ToIntFunction<? super T> keyMapper,
+			Function<? super T, ? extends V> valueMapper, OnDuplicate onDuplicate) {
+		Objects.requireNonNull(keyMapper);
+		Objects.requireNonNull(valueMapper);
+		switch (onDuplicate) {
+		case KEEP_FIRST:
+			return toIntMap(keyMapper, valueMapper, (first, last) -> first);
+		case KEEP_LAST:
+			return toIntMap(keyMapper, valueMapper, (first, last) -> last);
+		default:
+			return Collector.of(
+					IntObjMap<V>::new,
+					(map, t) -> putUnique(map, keyMapper.applyAsInt(t), valueMapper.apply(t)),
+					(left, right) -> {
+						right.forEach((key, value) -> putUnique(left, key, value));
+						return left;
+					},
+					IntObjMap::compact);
+		}
+	}
+
+	// As Collectors.toMap(keyMapper, valueMapper, mergeFunction).
+	public static <T, V> Collector<T, ?, IntObjMap<V>> toIntMap(ToIntFunction<? super T> keyMapper,
+			Function<? super T, ? extends V> valueMapper, BinaryOperator<V> mergeFunction) {
+		Objects.requireNonNull(keyMapper);
+		Objects.requireNonNull(valueMapper);
+		Objects.requireNonNull(mergeFunction);
+		return Collector.of(
+				IntObjMap<V>::new,
+				(map, t) -> map.merge(keyMapper.applyAsInt(t), valueMapper.apply(t), mergeFunction),
+				(left, right) -> {
+					right.forEach((key, value) -> left.merge(key, value, mergeFunction));
+					return left;
+				},
+				IntObjMap::compact);
+	}
+
+	private static <V> void putUnique(IntObjMap<V> map, int key, V value) {
+		V existing = map.putIfAbsent(key, value);
+		if (existing != null) {
+			throw new IllegalStateException(String.format("Duplicate key %d (attempted merging values %s and %s)",
+					key, existing, value));
+		}
+	}
+}
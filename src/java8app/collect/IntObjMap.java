@@ -0,0 +1,295 @@
+package java8app.collect;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+// int -> V map without boxed keys or entry nodes, for id-keyed lookups such as the
+// Map<Integer, String> of convertListToMap(). Null values are rejected, as in
+// Collectors.toMap().
+//
+// While the keys are near-contiguous (the span from the smallest to the largest key is at most
+// DENSITY times the size) values live in a plain array indexed by key - base: 4 or 8 bytes per
+// id and a get() that is one bounds check and one load. Once a key would make the span too
+// wide the map moves to an open-addressing table of int keys and values, which costs about
+// four slots per entry at a load factor of 0.5; on every resize it checks whether the keys
+// have become dense enough to move back.
+public final class IntObjMap<V> {
+
+	private static final int MIN_CAPACITY = 16;
+	private static final int DENSITY = 2;
+	private static final int MAX_DENSE = 1 << 30;
+
+	// null while dense
+	private int[] keys;
+	// dense: values[key - base]; hashed: values[slot], null marks a free slot
+	private Object[] values = new Object[0];
+	private int base;
+	private int mask;
+	private int resizeAt;
+	private int size;
+	private int min = Integer.MAX_VALUE;
+	private int max = Integer.MIN_VALUE;
+
+	public V get(int key) {
+		return getOrDefault(key, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	public V getOrDefault(int key, V defaultValue) {
+		Object[] values = this.values;
+		if (keys == null) {
+			long i = (long) key - base;
+			Object v;
+			return i >= 0 && i < values.length && (v = values[(int) i]) != null ? (V) v : defaultValue;
+		}
+		int[] keys = this.keys;
+		int i = Hashing.spread(key) & mask;
+		Object v;
+		while ((v = values[i]) != null) {
+			if (keys[i] == key) {
+				return (V) v;
+			}
+			i = (i + 1) & mask;
+		}
+		return defaultValue;
+	}
+
+	public boolean containsKey(int key) {
+		return get(key) != null;
+	}
+
+	// Returns the previous value, or null.
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		Objects.requireNonNull(value);
+		if (keys == null && !fitsDense(key)) {
+			toHashed(size + 1);
+		}
+		Object previous;
+		if (keys == null) {
+			int i = key - base;
+			previous = values[i];
+			values[i] = value;
+		} else {
+			int i = slot(key);
+			previous = values[i];
+			if (previous == null) {
+				Hashing.checkRoom(size, keys.length);
+			}
+			keys[i] = key;
+			values[i] = value;
+		}
+		if (previous == null) {
+			min = Math.min(min, key);
+			max = Math.max(max, key);
+			if (++size > resizeAt && keys != null) {
+				resize();
+			}
+		}
+		return (V) previous;
+	}
+
+	public V putIfAbsent(int key, V value) {
+		V existing = get(key);
+		return existing != null ? existing : put(key, value);
+	}
+
+	// As Map.merge(): stores value if the key is absent, otherwise the result of
+	// remapping(old, value), removing the key when that is null.
+	public V merge(int key, V value, BiFunction<? super V, ? super V, ? extends V> remapping) {
+		Objects.requireNonNull(value);
+		V old = get(key);
+		V next = old == null ? value : remapping.apply(old, value);
+		if (next == null) {
+			remove(key);
+		} else {
+			put(key, next);
+		}
+		return next;
+	}
+
+	// Returns the removed value, or null. The key range is not shrunk.
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+		if (keys == null) {
+			long i = (long) key - base;
+			if (i < 0 || i >= values.length || values[(int) i] == null) {
+				return null;
+			}
+			Object removed = values[(int) i];
+			values[(int) i] = null;
+			size--;
+			return (V) removed;
+		}
+		int i = slot(key);
+		Object removed = values[i];
+		if (removed == null) {
+			return null;
+		}
+		// backward-shift deletion: pull later entries of the probe sequence into the gap
+		int gap = i;
+		for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+			int home = Hashing.spread(keys[j]) & mask;
+			if (((j - home) & mask) >= ((j - gap) & mask)) {
+				keys[gap] = keys[j];
+				values[gap] = values[j];
+				gap = j;
+			}
+		}
+		values[gap] = null;
+		size--;
+		return (V) removed;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean isDense() {
+		return keys == null;
+	}
+
+	// Moves to the dense layout if the keys have become near-contiguous since the last resize.
+	public IntObjMap<V> compact() {
+		if (keys != null && isDenseSpan()) {
+			toDense((int) ((long) max - min + 1));
+		}
+		return this;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEach(IntObjConsumer<? super V> action) {
+		for (int i = 0; i < values.length; i++) {
+			Object v = values[i];
+			if (v != null) {
+				action.accept(keys == null ? base + i : keys[i], (V) v);
+			}
+		}
+	}
+
+	public Map<Integer, V> toMap() {
+		Map<Integer, V> map = new HashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+		forEach(map::put);
+		return map;
+	}
+
+	// Bytes of the key and value arrays assuming 4-byte references, not counting the values.
+	public long heapBytes() {
+		long bytes = 16 + 4L * values.length;
+		return keys == null ? bytes : bytes + 16 + 4L * keys.length;
+	}
+
+	@Override
+	public String toString() {
+		return toMap().toString();
+	}
+
+	public interface IntObjConsumer<V> {
+
+		void accept(int key, V value);
+	}
+
+	// Makes room for key in the dense array if the key span stays dense enough.
+	private boolean fitsDense(int key) {
+		long i = (long) key - base;
+		if (i >= 0 && i < values.length) {
+			return true;
+		}
+		int low = size == 0 ? key : Math.min(min, key);
+		int high = size == 0 ? key : Math.max(max, key);
+		long span = (long) high - low + 1;
+		if (span > MAX_DENSE || span > Math.max(MIN_CAPACITY, (long) DENSITY * (size + 1))) {
+			return false;
+		}
+		// headroom above the range, where ascending ids arrive
+		int length = (int) Math.min(MAX_DENSE, Math.max(span, Math.min((long) DENSITY * (size + 1), 2L * values.length)));
+		length = Math.max(length, MIN_CAPACITY);
+		if ((long) low + length - 1 > Integer.MAX_VALUE) {
+			low = Integer.MAX_VALUE - length + 1;
+		}
+		Object[] grown = new Object[length];
+		for (int j = 0; j < values.length; j++) {
+			if (values[j] != null) {
+				grown[base + j - low] = values[j];
+			}
+		}
+		values = grown;
+		base = low;
+		return true;
+	}
+
+	private void resize() {
+		if (isDenseSpan()) {
+			toDense((int) ((long) max - min + 1));
+		} else {
+			rehash(keys.length << 1);
+		}
+	}
+
+	private boolean isDenseSpan() {
+		long span = (long) max - min + 1;
+		return size > 0 && span <= (long) DENSITY * size && span <= MAX_DENSE;
+	}
+
+	private void toHashed(int expectedSize) {
+		Object[] dense = values;
+		int denseBase = base;
+		allocate(Hashing.tableSize(expectedSize, MIN_CAPACITY));
+		for (int j = 0; j < dense.length; j++) {
+			if (dense[j] != null) {
+				int i = slot(denseBase + j);
+				keys[i] = denseBase + j;
+				values[i] = dense[j];
+			}
+		}
+	}
+
+	private void toDense(int span) {
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = null;
+		values = new Object[Math.max(span, MIN_CAPACITY)];
+		base = (long) min + values.length - 1 > Integer.MAX_VALUE ? Integer.MAX_VALUE - values.length + 1 : min;
+		for (int j = 0; j < oldValues.length; j++) {
+			if (oldValues[j] != null) {
+				values[oldKeys[j] - base] = oldValues[j];
+			}
+		}
+		resizeAt = Integer.MAX_VALUE;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(capacity);
+		for (int j = 0; j < oldValues.length; j++) {
+			if (oldValues[j] != null) {
+				int i = slot(oldKeys[j]);
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		resizeAt = Hashing.resizeThreshold(capacity);
+	}
+
+	// Slot holding key, or the free slot where it would go.
+	private int slot(int key) {
+		int i = Hashing.spread(key) & mask;
+		while (values[i] != null && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+}
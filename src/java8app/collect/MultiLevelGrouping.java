@@ -0,0 +1,150 @@
+package java8app.collect;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+// Multi-level groupingBy (state -> city -> ...) for parallel streams. Nested
+// Collectors.groupingBy merges nested HashMaps at every split, and groupingByConcurrent makes
+// every thread contend on one ConcurrentHashMap. Here each worker thread accumulates into its
+// own flat table keyed by the whole key path, and the tables are merged once, in the finisher,
+// before the nested result maps are built. The result has the same shape as nesting
+// Collectors.groupingBy(k1, groupingBy(k2, ... downstream)) and uses HashMaps at every level.
+public final class MultiLevelGrouping {
+
+	private MultiLevelGrouping() {
+	}
+
+	public static <T, K1, K2, A, D> Collector<T, ?, Map<K1, Map<K2, D>>> groupingBy(
+			Function<? super T, ? extends K1> first, Function<? super T, ? extends K2> second,
+			Collector<? super T, A, D> downstream) {
+		@SuppressWarnings("unchecked")
+		Collector<T, ?, Map<K1, Map<K2, D>>> collector = (Collector<T, ?, Map<K1, Map<K2, D>>>) (Collector<T, ?, ?>)
+				groupingBy(Arrays.<Function<? super T, ?>>asList(first, second), downstream);
+		return collector;
+	}
+
+	public static <T, K1, K2, K3, A, D> Collector<T, ?, Map<K1, Map<K2, Map<K3, D>>>> groupingBy(
+			Function<? super T, ? extends K1> first, Function<? super T, ? extends K2> second,
+			Function<? super T, ? extends K3> third, Collector<? super T, A, D> downstream) {
+		@SuppressWarnings("unchecked")
+		Collector<T, ?, Map<K1, Map<K2, Map<K3, D>>>> collector = (Collector<T, ?, Map<K1, Map<K2, Map<K3, D>>>>) (Collector<T, ?, ?>)
+				groupingBy(Arrays.<Function<? super T, ?>>asList(first, second, third), downstream);
+		return collector;
+	}
+
+	// Any depth of classifiers. Every level but the last maps to a nested Map; the last level
+	// maps to the downstream result. Null keys throw NullPointerException, as in groupingBy.
+	public static <T, A, D> Collector<T, ?, Map<Object, Object>> groupingBy(
+			List<? extends Function<? super T, ?>> classifiers, Collector<? super T, A, D> downstream) {
+		if (classifiers.isEmpty()) {
+			throw new IllegalArgumentException("At least one classifier is required");
+		}
+		@SuppressWarnings("unchecked")
+		Function<? super T, ?>[] levels = (Function<? super T, ?>[]) classifiers.toArray(new Function<?, ?>[0]);
+		Supplier<A> supplier = downstream.supplier();
+		BiConsumer<A, ? super T> accumulator = downstream.accumulator();
+		BinaryOperator<A> combiner = downstream.combiner();
+		Function<A, D> finisher = downstream.finisher();
+		return Collector.<T, PerThreadPartials<Partial<T, A>>, Map<Object, Object>>of(
+				() -> new PerThreadPartials<>(() -> new Partial<T, A>(levels, supplier, accumulator)),
+				(partials, t) -> partials.get().accept(t),
+				PerThreadPartials::addAll,
+				partials -> finish(partials.take(), combiner, finisher, levels.length),
+				Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED);
+	}
+
+	private static <T, A, D> Map<Object, Object> finish(List<Partial<T, A>> partials, BinaryOperator<A> combiner,
+			Function<A, D> finisher, int depth) {
+		if (partials.isEmpty()) {
+			return new HashMap<>();
+		}
+		// merge into the largest table so the fewest entries are re-inserted
+		Partial<T, A> largest = Collections.max(partials, (a, b) -> Integer.compare(a.groups.size(), b.groups.size()));
+		Map<KeyPath, A> merged = largest.groups;
+		for (Partial<T, A> partial : partials) {
+			if (partial != largest) {
+				for (Map.Entry<KeyPath, A> group : partial.groups.entrySet()) {
+					merged.merge(group.getKey(), group.getValue(), combiner);
+				}
+			}
+		}
+		Map<Object, Object> result = new HashMap<>();
+		for (Map.Entry<KeyPath, A> group : merged.entrySet()) {
+			Object[] keys = group.getKey().keys;
+			Map<Object, Object> level = result;
+			for (int i = 0; i < depth - 1; i++) {
+				@SuppressWarnings("unchecked")
+				Map<Object, Object> next = (Map<Object, Object>) level.computeIfAbsent(keys[i], k -> new HashMap<>());
+				level = next;
+			}
+			level.put(keys[depth - 1], finisher.apply(group.getValue()));
+		}
+		return result;
+	}
+
+	// One worker thread's flat table. The probe key is reused for lookups, so an element of an
+	// existing group costs no allocation beyond what the downstream accumulator does.
+	static final class Partial<T, A> {
+
+		final Map<KeyPath, A> groups = new HashMap<>();
+		private final Function<? super T, ?>[] levels;
+		private final Supplier<A> supplier;
+		private final BiConsumer<A, ? super T> accumulator;
+		private final KeyPath probe;
+
+		Partial(Function<? super T, ?>[] levels, Supplier<A> supplier, BiConsumer<A, ? super T> accumulator) {
+			this.levels = levels;
+			this.supplier = supplier;
+			this.accumulator = accumulator;
+			this.probe = new KeyPath(new Object[levels.length]);
+		}
+
+		void accept(T t) {
+			Object[] keys = probe.keys;
+			for (int i = 0; i < levels.length; i++) {
+				keys[i] = Objects.requireNonNull(levels[i].apply(t), "element cannot be mapped to a null key");
+			}
+			probe.rehash();
+			A container = groups.get(probe);
+			if (container == null) {
+				container = supplier.get();
+				groups.put(new KeyPath(keys.clone()), container);
+			}
+			accumulator.accept(container, t);
+		}
+	}
+
+	static final class KeyPath {
+
+		final Object[] keys;
+		private int hash;
+
+		KeyPath(Object[] keys) {
+			this.keys = keys;
+			rehash();
+		}
+
+		void rehash() {
+			hash = Arrays.hashCode(keys);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof KeyPath && hash == ((KeyPath) o).hash && Arrays.equals(keys, ((KeyPath) o).keys);
+		}
+	}
+}
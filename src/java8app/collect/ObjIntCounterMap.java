@@ -0,0 +1,166 @@
+package java8app.collect;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+
+// Open-addressing K -> int counter, the int twin of ObjLongCounterMap for summingInt-style
+// aggregations. Updating an existing key writes a primitive slot in place; no boxing, no node
+// allocation. Null keys are rejected, as in Collectors.groupingBy.
+public final class ObjIntCounterMap<K> {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private Object[] keys;
+	private int[] counts;
+	private int size;
+	private int mask;
+	private int resizeAt;
+
+	public ObjIntCounterMap() {
+		this(MIN_CAPACITY);
+	}
+
+	public ObjIntCounterMap(int expectedSize) {
+		allocate(Hashing.tableSize(expectedSize, MIN_CAPACITY));
+	}
+
+	public void increment(K key) {
+		add(key, 1);
+	}
+
+	public void add(K key, int delta) {
+		int slot = slot(key);
+		if (keys[slot] == null) {
+			Hashing.checkRoom(size, keys.length);
+			keys[slot] = key;
+			counts[slot] = delta;
+			if (++size > resizeAt) {
+				rehash(keys.length << 1);
+			}
+		} else {
+			counts[slot] += delta;
+		}
+	}
+
+	public int get(K key) {
+		int slot = slot(key);
+		return keys[slot] == null ? 0 : counts[slot];
+	}
+
+	public boolean containsKey(K key) {
+		return keys[slot(key)] != null;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEach(ObjIntConsumer<? super K> action) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				action.accept((K) keys[i], counts[i]);
+			}
+		}
+	}
+
+	// Adds every count of other into this map; used as the parallel combiner.
+	@SuppressWarnings("unchecked")
+	public ObjIntCounterMap<K> merge(ObjIntCounterMap<K> other) {
+		if (other.size > size) {
+			ObjIntCounterMap<K> larger = other;
+			larger.merge(this);
+			return larger;
+		}
+		Object[] otherKeys = other.keys;
+		int[] otherCounts = other.counts;
+		for (int i = 0; i < otherKeys.length; i++) {
+			if (otherKeys[i] != null) {
+				add((K) otherKeys[i], otherCounts[i]);
+			}
+		}
+		return this;
+	}
+
+	public Map<K, Integer> toMap() {
+		Map<K, Integer> map = new HashMap<>(Hashing.tableSize(size, MIN_CAPACITY));
+		forEach(map::put);
+		return map;
+	}
+
+	// Entries ordered by count descending, ties broken by keyOrder, like
+	// comparingByValue().reversed().thenComparing(comparingByKey()).
+	@SuppressWarnings("unchecked")
+	public LinkedHashMap<K, Integer> sortedByCount(Comparator<? super K> keyOrder) {
+		Objects.requireNonNull(keyOrder);
+		Integer[] slots = occupiedSlots();
+		Arrays.sort(slots, (a, b) -> {
+			int byCount = Integer.compare(counts[b], counts[a]);
+			return byCount != 0 ? byCount : keyOrder.compare((K) keys[a], (K) keys[b]);
+		});
+		LinkedHashMap<K, Integer> sorted = new LinkedHashMap<>(Hashing.tableSize(size, MIN_CAPACITY));
+		for (Integer slot : slots) {
+			sorted.put((K) keys[slot], counts[slot]);
+		}
+		return sorted;
+	}
+
+	@Override
+	public String toString() {
+		return toMap().toString();
+	}
+
+	private Integer[] occupiedSlots() {
+		Integer[] slots = new Integer[size];
+		int n = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				slots[n++] = i;
+			}
+		}
+		return slots;
+	}
+
+	private int slot(Object key) {
+		Objects.requireNonNull(key, "element cannot be mapped to a null key");
+		int i = Hashing.spread(key.hashCode()) & mask;
+		Object k;
+		while ((k = keys[i]) != null && !k.equals(key)) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private void allocate(int capacity) {
+		keys = new Object[capacity];
+		counts = new int[capacity];
+		mask = capacity - 1;
+		resizeAt = Hashing.resizeThreshold(capacity);
+	}
+
+	private void rehash(int capacity) {
+		Object[] oldKeys = keys;
+		int[] oldCounts = counts;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			Object key = oldKeys[i];
+			if (key != null) {
+				int slot = Hashing.spread(key.hashCode()) & mask;
+				while (keys[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = key;
+				counts[slot] = oldCounts[i];
+			}
+		}
+	}
+}
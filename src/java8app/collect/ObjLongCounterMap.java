@@ -0,0 +1,166 @@
+package java8app.collect;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ObjLongConsumer;
+
+// Open-addressing K -> long counter. Keys and counts live in two parallel arrays probed
+// linearly, so updating an existing key writes a primitive slot in place instead of boxing a
+// Long and allocating a HashMap node. Null keys are rejected, as in Collectors.groupingBy.
+public final class ObjLongCounterMap<K> {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private Object[] keys;
+	private long[] counts;
+	private int size;
+	private int mask;
+	private int resizeAt;
+
+	public ObjLongCounterMap() {
+		this(MIN_CAPACITY);
+	}
+
+	public ObjLongCounterMap(int expectedSize) {
+		allocate(Hashing.tableSize(expectedSize, MIN_CAPACITY));
+	}
+
+	public void increment(K key) {
+		add(key, 1L);
+	}
+
+	public void add(K key, long delta) {
+		int slot = slot(key);
+		if (keys[slot] == null) {
+			Hashing.checkRoom(size, keys.length);
+			keys[slot] = key;
+			counts[slot] = delta;
+			if (++size > resizeAt) {
+				rehash(keys.length << 1);
+			}
+		} else {
+			counts[slot] += delta;
+		}
+	}
+
+	public long get(K key) {
+		int slot = slot(key);
+		return keys[slot] == null ? 0L : counts[slot];
+	}
+
+	public boolean containsKey(K key) {
+		return keys[slot(key)] != null;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEach(ObjLongConsumer<? super K> action) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				action.accept((K) keys[i], counts[i]);
+			}
+		}
+	}
+
+	// Adds every count of other into this map; used as the parallel combiner.
+	@SuppressWarnings("unchecked")
+	public ObjLongCounterMap<K> merge(ObjLongCounterMap<K> other) {
+		if (other.size > size) {
+			ObjLongCounterMap<K> larger = other;
+			larger.merge(this);
+			return larger;
+		}
+		Object[] otherKeys = other.keys;
+		long[] otherCounts = other.counts;
+		for (int i = 0; i < otherKeys.length; i++) {
+			if (otherKeys[i] != null) {
+				add((K) otherKeys[i], otherCounts[i]);
+			}
+		}
+		return this;
+	}
+
+	public Map<K, Long> toMap() {
+		Map<K, Long> map = new HashMap<>(Hashing.tableSize(size, MIN_CAPACITY));
+		forEach(map::put);
+		return map;
+	}
+
+	// Entries ordered by count descending, ties broken by keyOrder, like
+	// comparingByValue().reversed().thenComparing(comparingByKey()).
+	@SuppressWarnings("unchecked")
+	public LinkedHashMap<K, Long> sortedByCount(Comparator<? super K> keyOrder) {
+		Objects.requireNonNull(keyOrder);
+		Integer[] slots = occupiedSlots();
+		Arrays.sort(slots, (a, b) -> {
+			int byCount = Long.compare(counts[b], counts[a]);
+			return byCount != 0 ? byCount : keyOrder.compare((K) keys[a], (K) keys[b]);
+		});
+		LinkedHashMap<K, Long> sorted = new LinkedHashMap<>(Hashing.tableSize(size, MIN_CAPACITY));
+		for (Integer slot : slots) {
+			sorted.put((K) keys[slot], counts[slot]);
+		}
+		return sorted;
+	}
+
+	@Override
+	public String toString() {
+		return toMap().toString();
+	}
+
+	private Integer[] occupiedSlots() {
+		Integer[] slots = new Integer[size];
+		int n = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				slots[n++] = i;
+			}
+		}
+		return slots;
+	}
+
+	private int slot(Object key) {
+		Objects.requireNonNull(key, "element cannot be mapped to a null key");
+		int i = Hashing.spread(key.hashCode()) & mask;
+		Object k;
+		while ((k = keys[i]) != null && !k.equals(key)) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private void allocate(int capacity) {
+		keys = new Object[capacity];
+		counts = new long[capacity];
+		mask = capacity - 1;
+		resizeAt = Hashing.resizeThreshold(capacity);
+	}
+
+	private void rehash(int capacity) {
+		Object[] oldKeys = keys;
+		long[] oldCounts = counts;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			Object key = oldKeys[i];
+			if (key != null) {
+				int slot = Hashing.spread(key.hashCode()) & mask;
+				while (keys[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = key;
+				counts[slot] = oldCounts[i];
+			}
+		}
+	}
+}
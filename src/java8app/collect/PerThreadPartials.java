@@ -0,0 +1,61 @@
+package java8app.collect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+// One accumulation container per worker thread, for CONCURRENT collectors: a parallel stream
+// shares a single PerThreadPartials, every thread accumulates into its own container without
+// contention, and the finisher merges the containers once.
+//
+// The thread-locals hold a slot rather than the container. The finisher can only remove the
+// entry of its own thread; the entries of pool workers stay in their ThreadLocalMaps until a
+// stale-entry expunge happens to run. take() empties every slot, so those entries no longer
+// keep the containers reachable once the collect is done.
+final class PerThreadPartials<A> {
+
+	private final List<Slot<A>> slots = new CopyOnWriteArrayList<>();
+	private final ThreadLocal<Slot<A>> local;
+
+	PerThreadPartials(Supplier<A> supplier) {
+		this.local = ThreadLocal.withInitial(() -> {
+			Slot<A> slot = new Slot<>(supplier.get());
+			slots.add(slot);
+			return slot;
+		});
+	}
+
+	A get() {
+		return local.get().partial;
+	}
+
+	// All containers created so far, emptying their slots; called once, by the finisher, after
+	// accumulation has finished.
+	List<A> take() {
+		List<A> partials = new ArrayList<>(slots.size());
+		for (Slot<A> slot : slots) {
+			partials.add(slot.partial);
+			slot.partial = null;
+		}
+		slots.clear();
+		local.remove();
+		return partials;
+	}
+
+	// Used when the collector runs non-concurrently (e.g. as a downstream) and the stream
+	// framework combines two containers.
+	PerThreadPartials<A> addAll(PerThreadPartials<A> other) {
+		slots.addAll(other.slots);
+		return this;
+	}
+
+	private static final class Slot<A> {
+
+		A partial;
+
+		Slot(A partial) {
+			this.partial = partial;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package java8app.collect;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+// Concurrent set split into independently locked HashSet shards, chosen by hash. Threads only
+// wait for each other when they hit the same shard at the same time, and with several shards
+// per core that is rare. Iteration walks a snapshot of each shard in turn, so it is weakly
+// consistent. Null elements are not allowed.
+public final class ShardedConcurrentSet<E> extends AbstractSet<E> {
+
+	private final Set<E>[] shards;
+	private final int mask;
+
+	public ShardedConcurrentSet() {
+		this(Runtime.getRuntime().availableProcessors() * 8);
+	}
+
+	public ShardedConcurrentSet(int shardCount) {
+		int count = Integer.highestOneBit(Math.max(1, Math.min(shardCount, 1 << 16)) - 1) << 1;
+		@SuppressWarnings("unchecked")
+		Set<E>[] shards = (Set<E>[]) new Set<?>[Math.max(1, count)];
+		this.shards = shards;
+		for (int i = 0; i < shards.length; i++) {
+			shards[i] = new HashSet<>();
+		}
+		mask = shards.length - 1;
+	}
+
+	private Set<E> shard(Object o) {
+		if (o == null) {
+			throw new NullPointerException();
+		}
+		return shards[Hashing.spread(o.hashCode()) & mask];
+	}
+
+	@Override
+	public boolean add(E e) {
+		Set<E> shard = shard(e);
+		synchronized (shard) {
+			return shard.add(e);
+		}
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		Set<?> shard = shard(o);
+		synchronized (shard) {
+			return shard.contains(o);
+		}
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		Set<?> shard = shard(o);
+		synchronized (shard) {
+			return shard.remove(o);
+		}
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (Set<E> shard : shards) {
+			synchronized (shard) {
+				size += shard.size();
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private int next;
+			private Iterator<E> current = snapshot(0);
+			private E last;
+
+			@Override
+			public boolean hasNext() {
+				while (!current.hasNext() && next < shards.length - 1) {
+					current = snapshot(++next);
+				}
+				return current.hasNext();
+			}
+
+			@Override
+			public E next() {
+				hasNext();
+				return last = current.next();
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				ShardedConcurrentSet.this.remove(last);
+				last = null;
+			}
+		};
+	}
+
+	private Iterator<E> snapshot(int index) {
+		Set<E> shard = shards[index];
+		synchronized (shard) {
+			List<E> copy = new ArrayList<>(shard);
+			return copy.iterator();
+		}
+	}
+}
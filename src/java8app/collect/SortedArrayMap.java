@@ -0,0 +1,150 @@
+package java8app.collect;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+// Immutable map that iterates in a fixed sort order. Keys and values are held in two parallel
+// arrays in iteration order, with no entry objects; lookups binary-search the keys, through an
+// int[] permutation when the iteration order is not the key order (e.g. sorted by value).
+// That is two references plus at most one int per entry, against the 40-byte node and table
+// slot of a LinkedHashMap entry.
+public final class SortedArrayMap<K, V> extends AbstractMap<K, V> {
+
+	private final Object[] keys;
+	private final Object[] values;
+	private final Comparator<? super K> keyOrder;
+	// Positions in key order, or null when the iteration order already is the key order.
+	private final int[] byKey;
+
+	// keys and values must be in iteration order; they are not copied.
+	@SuppressWarnings("unchecked")
+	SortedArrayMap(Object[] keys, Object[] values, Comparator<? super K> keyOrder) {
+		this.keys = keys;
+		this.values = values;
+		this.keyOrder = Objects.requireNonNull(keyOrder);
+		this.byKey = isSortedByKey(keys, keyOrder) ? null : keyPermutation(keys, keyOrder);
+		for (int i = 1; i < keys.length; i++) {
+			if (keyOrder.compare((K) keys[key(i - 1)], (K) keys[key(i)]) == 0) {
+				throw new IllegalStateException("Duplicate key " + keys[key(i)]);
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		return keys.length;
+	}
+
+	@SuppressWarnings("unchecked")
+	public K keyAt(int index) {
+		return (K) keys[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	public V valueAt(int index) {
+		return (V) values[index];
+	}
+
+	// Position of key in iteration order, or -1.
+	@SuppressWarnings("unchecked")
+	public int indexOf(Object key) {
+		if (key == null) {
+			return -1;
+		}
+		int low = 0;
+		int high = keys.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp;
+			try {
+				cmp = keyOrder.compare((K) keys[key(mid)], (K) key);
+			} catch (ClassCastException e) {
+				return -1;
+			}
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return key(mid);
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public V get(Object key) {
+		int index = indexOf(key);
+		return index < 0 ? null : valueAt(index);
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		return new AbstractSet<Entry<K, V>>() {
+			@Override
+			public Iterator<Entry<K, V>> iterator() {
+				return new Iterator<Entry<K, V>>() {
+					private int next;
+
+					@Override
+					public boolean hasNext() {
+						return next < keys.length;
+					}
+
+					@Override
+					public Entry<K, V> next() {
+						if (next >= keys.length) {
+							throw new NoSuchElementException();
+						}
+						int i = next++;
+						return new SimpleImmutableEntry<>(keyAt(i), valueAt(i));
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return keys.length;
+			}
+		};
+	}
+
+	private int key(int rank) {
+		return byKey == null ? rank : byKey[rank];
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K> boolean isSortedByKey(Object[] keys, Comparator<? super K> keyOrder) {
+		for (int i = 1; i < keys.length; i++) {
+			if (keyOrder.compare((K) keys[i - 1], (K) keys[i]) > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K> int[] keyPermutation(Object[] keys, Comparator<? super K> keyOrder) {
+		Integer[] order = new Integer[keys.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> keyOrder.compare((K) keys[a], (K) keys[b]));
+		int[] byKey = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			byKey[i] = order[i];
+		}
+		return byKey;
+	}
+}
@@ -0,0 +1,103 @@
+package java8app.collect;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+// Collectors that sort and keep the sort in the resulting map, unlike sorted() followed by
+// Collectors.toMap (which lands in a HashMap), and without the sequential forEachOrdered tail
+// of the LinkedHashMap variant. Under .parallel() every split sorts its own chunk and the
+// combiner merges two sorted chunks; the merge is stable, so ties keep encounter order as
+// sorted() does. Duplicate keys throw IllegalStateException, as in toMap.
+public final class SortedMapCollectors {
+
+	private SortedMapCollectors() {
+	}
+
+	// Iterates in the given entry order; keyOrder is used for lookups.
+	public static <T, K, V> Collector<T, ?, SortedArrayMap<K, V>> toSortedMap(
+			Function<? super T, ? extends K> keyMapper, Function<? super T, ? extends V> valueMapper,
+			Comparator<? super Map.Entry<K, V>> order, Comparator<? super K> keyOrder) {
+		return Collector.<T, SortedRun<K, V>, SortedArrayMap<K, V>>of(
+				() -> new SortedRun<>(order),
+				(run, t) -> run.add(new AbstractMap.SimpleImmutableEntry<>(keyMapper.apply(t), valueMapper.apply(t))),
+				SortedRun::merge,
+				run -> run.toMap(keyOrder));
+	}
+
+	// Entries sorted by key, a,b,c,d,e...
+	public static <K extends Comparable<? super K>, V> Collector<Map.Entry<K, V>, ?, SortedArrayMap<K, V>> sortedByKey() {
+		return toSortedMap(Map.Entry::getKey, Map.Entry::getValue,
+				Map.Entry.<K, V>comparingByKey(), Comparator.<K>naturalOrder());
+	}
+
+	// Entries sorted by value in reverse, 99,50,20,10..., ties by key.
+	public static <K extends Comparable<? super K>, V extends Comparable<? super V>>
+			Collector<Map.Entry<K, V>, ?, SortedArrayMap<K, V>> sortedByValueDesc() {
+		return toSortedMap(Map.Entry::getKey, Map.Entry::getValue,
+				Map.Entry.<K, V>comparingByValue().reversed().thenComparing(Map.Entry.<K, V>comparingByKey()),
+				Comparator.<K>naturalOrder());
+	}
+
+	// A chunk of entries that is sorted lazily, the first time it takes part in a merge.
+	static final class SortedRun<K, V> {
+
+		private final Comparator<? super Map.Entry<K, V>> order;
+		private List<Map.Entry<K, V>> entries = new ArrayList<>();
+		private boolean sorted = true;
+
+		SortedRun(Comparator<? super Map.Entry<K, V>> order) {
+			this.order = order;
+		}
+
+		void add(Map.Entry<K, V> entry) {
+			entries.add(entry);
+			sorted = entries.size() < 2;
+		}
+
+		SortedRun<K, V> merge(SortedRun<K, V> right) {
+			sort();
+			right.sort();
+			List<Map.Entry<K, V>> left = entries;
+			List<Map.Entry<K, V>> other = right.entries;
+			List<Map.Entry<K, V>> merged = new ArrayList<>(left.size() + other.size());
+			int i = 0;
+			int j = 0;
+			while (i < left.size() && j < other.size()) {
+				// take from the right chunk only when strictly smaller, so ties keep encounter order
+				if (order.compare(other.get(j), left.get(i)) < 0) {
+					merged.add(other.get(j++));
+				} else {
+					merged.add(left.get(i++));
+				}
+			}
+			merged.addAll(left.subList(i, left.size()));
+			merged.addAll(other.subList(j, other.size()));
+			entries = merged;
+			return this;
+		}
+
+		SortedArrayMap<K, V> toMap(Comparator<? super K> keyOrder) {
+			sort();
+			Object[] keys = new Object[entries.size()];
+			Object[] values = new Object[entries.size()];
+			for (int i = 0; i < keys.length; i++) {
+				Map.Entry<K, V> entry = entries.get(i);
+				keys[i] = entry.getKey();
+				values[i] = entry.getValue();
+			}
+			return new SortedArrayMap<>(keys, values, keyOrder);
+		}
+
+		private void sort() {
+			if (!sorted) {
+				entries.sort(order);
+				sorted = true;
+			}
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package java8app.collect;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collector;
+
+// Top-K collectors backed by a bounded heap: the result equals sorted(comparator).limit(k),
+// computed in O(n log k) time and O(k) space instead of sorting all n elements.
+public final class TopKCollectors {
+
+	private TopKCollectors() {
+	}
+
+	// The k first elements in comparator order. Parallel streams combine the per-split heaps.
+	public static <T> Collector<T, ?, List<T>> topK(int k, Comparator<? super T> comparator) {
+		checkK(k);
+		return Collector.of(
+				() -> new BoundedHeap<T>(k, comparator),
+				BoundedHeap::offer,
+				BoundedHeap::merge,
+				BoundedHeap::toSortedList);
+	}
+
+	// topK as a CONCURRENT collector: under .parallel() each worker thread fills its own heap and
+	// the heaps are merged once in the finisher. The collector is UNORDERED, so among elements
+	// that tie at the k-th place, which ones are kept is unspecified.
+	public static <T> Collector<T, ?, List<T>> parallelTopK(int k, Comparator<? super T> comparator) {
+		checkK(k);
+		return Collector.of(
+				() -> new PerThreadPartials<BoundedHeap<T>>(() -> new BoundedHeap<T>(k, comparator)),
+				(partials, t) -> partials.get().offer(t),
+				PerThreadPartials::addAll,
+				partials -> {
+					BoundedHeap<T> merged = new BoundedHeap<>(k, comparator);
+					for (BoundedHeap<T> heap : partials.take()) {
+						merged = merged.merge(heap);
+					}
+					return merged.toSortedList();
+				},
+				Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED);
+	}
+
+	// The k entries with the largest values, ties broken by key, in the order of
+	// comparingByValue().reversed().thenComparing(comparingByKey()).
+	public static <K extends Comparable<? super K>, V extends Comparable<? super V>>
+			Collector<Map.Entry<K, V>, ?, LinkedHashMap<K, V>> topKByValue(int k) {
+		checkK(k);
+		Comparator<Map.Entry<K, V>> order = Map.Entry.<K, V>comparingByValue().reversed()
+				.thenComparing(Map.Entry.<K, V>comparingByKey());
+		return Collector.of(
+				() -> new BoundedHeap<Map.Entry<K, V>>(k, order),
+				BoundedHeap::offer,
+				BoundedHeap::merge,
+				heap -> {
+					LinkedHashMap<K, V> top = new LinkedHashMap<>();
+					for (Map.Entry<K, V> entry : heap.toSortedList()) {
+						top.put(entry.getKey(), entry.getValue());
+					}
+					return top;
+				});
+	}
+
+	private static void checkK(int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException("k must not be negative: " + k);
+		}
+	}
+
+	// Keeps the k first elements seen so far; the heap root is the worst of them, so a new
+	// element only costs a comparison unless it beats the root. Every element carries its
+	// position in the input, which breaks comparator ties in favour of the earlier element,
+	// as the stable sort in sorted() does.
+	static final class BoundedHeap<T> {
+
+		private final int k;
+		private final Comparator<? super T> comparator;
+		private final Comparator<Ranked<T>> order;
+		private final PriorityQueue<Ranked<T>> heap;
+		private long sequence;
+
+		BoundedHeap(int k, Comparator<? super T> comparator) {
+			this.k = k;
+			this.comparator = comparator;
+			this.order = (a, b) -> {
+				int c = comparator.compare(a.value, b.value);
+				return c != 0 ? c : Long.compare(a.sequence, b.sequence);
+			};
+			this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1 << 16)), order.reversed());
+		}
+
+		void offer(T t) {
+			if (heap.size() < k) {
+				heap.add(new Ranked<>(t, sequence));
+			} else if (k > 0 && comparator.compare(t, heap.peek().value) < 0) {
+				heap.poll();
+				heap.add(new Ranked<>(t, sequence));
+			}
+			sequence++;
+		}
+
+		// This heap's elements come before the other's in encounter order, so they are
+		// offered to the result first and keep the lower positions.
+		BoundedHeap<T> merge(BoundedHeap<T> other) {
+			if (other.heap.isEmpty()) {
+				return this;
+			}
+			if (heap.isEmpty()) {
+				return other;
+			}
+			BoundedHeap<T> merged = new BoundedHeap<>(k, comparator);
+			for (T t : inEncounterOrder()) {
+				merged.offer(t);
+			}
+			for (T t : other.inEncounterOrder()) {
+				merged.offer(t);
+			}
+			return merged;
+		}
+
+		List<T> toSortedList() {
+			return values(order);
+		}
+
+		private List<T> inEncounterOrder() {
+			return values(Comparator.comparingLong(ranked -> ranked.sequence));
+		}
+
+		private List<T> values(Comparator<Ranked<T>> by) {
+			List<Ranked<T>> ranked = new ArrayList<>(heap);
+			ranked.sort(by);
+			List<T> values = new ArrayList<>(ranked.size());
+			for (Ranked<T> r : ranked) {
+				values.add(r.value);
+			}
+			return values;
+		}
+	}
+
+	private static final class Ranked<T> {
+
+		final T value;
+		final long sequence;
+
+		Ranked(T value, long sequence) {
+			this.value = value;
+			this.sequence = sequence;
+		}
+	}
+}
@@ -0,0 +1,298 @@
+package java8app.columnar;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import java8app.model.Item;
+
+// Struct-of-arrays form of the Item[] in groupCountMappingOnStreams(). Names are dictionary
+// encoded into an int[] of codes, quantities and prices are plain int[] / double[] columns,
+// and the group queries are loops over those arrays that index per-group accumulators by
+// name code, with no per-row pointer chasing or boxing. Results have the same types and
+// values as the corresponding Collectors (averages agree up to floating-point rounding,
+// since the compensated summation runs in a different order under parallel()).
+//
+// Parallel queries split the rows into fixed chunks, aggregate each chunk into its own
+// arrays and add the arrays together.
+public final class ColumnarItemTable {
+
+	// Rows per parallel chunk; large enough that a chunk's loop dwarfs the fork overhead.
+	static final int CHUNK_ROWS = 1 << 16;
+
+	private final String[] dictionary;
+	private final int[] nameCodes;
+	private final int[] qty;
+	private final double[] price;
+
+	private ColumnarItemTable(String[] dictionary, int[] nameCodes, int[] qty, double[] price) {
+		this.dictionary = dictionary;
+		this.nameCodes = nameCodes;
+		this.qty = qty;
+		this.price = price;
+	}
+
+	public static ColumnarItemTable of(Item... items) {
+		return of(Arrays.asList(items));
+	}
+
+	public static ColumnarItemTable of(Collection<? extends Item> items) {
+		Builder builder = new Builder(items.size());
+		for (Item item : items) {
+			builder.add(item.getName(), item.getQty(), item.getPrice());
+		}
+		return builder.build();
+	}
+
+	public int size() {
+		return nameCodes.length;
+	}
+
+	public int distinctNames() {
+		return dictionary.length;
+	}
+
+	// Approximate retained size of the columns and the dictionary strings.
+	public long heapBytes() {
+		long bytes = 4L * nameCodes.length + 4L * qty.length + 8L * price.length + 3 * 16;
+		for (String name : dictionary) {
+			bytes += 8 + 40 + 2L * name.length();
+		}
+		return bytes;
+	}
+
+	// groupingBy(Item::getName, counting())
+	public Map<String, Long> countByName(boolean parallel) {
+		long[] counts = aggregate(parallel, (from, to) -> {
+			long[] partial = new long[dictionary.length];
+			for (int i = from; i < to; i++) {
+				partial[nameCodes[i]]++;
+			}
+			return partial;
+		});
+		Map<String, Long> result = new HashMap<>();
+		for (int code = 0; code < counts.length; code++) {
+			if (counts[code] > 0) {
+				result.put(dictionary[code], counts[code]);
+			}
+		}
+		return result;
+	}
+
+	// groupingBy(Item::getName, summingInt(Item::getQty)), with the same int overflow behaviour
+	public Map<String, Integer> sumQtyByName(boolean parallel) {
+		long[] sums = aggregate(parallel, (from, to) -> {
+			long[] partial = new long[2 * dictionary.length];
+			for (int i = from; i < to; i++) {
+				int code = nameCodes[i] << 1;
+				partial[code] += qty[i];
+				partial[code + 1]++;
+			}
+			return partial;
+		});
+		Map<String, Integer> result = new HashMap<>();
+		for (int code = 0; code < dictionary.length; code++) {
+			if (sums[2 * code + 1] > 0) {
+				result.put(dictionary[code], (int) sums[2 * code]);
+			}
+		}
+		return result;
+	}
+
+	// groupingBy(Item::getName, averagingDouble(item -> item.getPrice() / item.getQty()))
+	public Map<String, Double> averagePricePerQtyByName(boolean parallel) {
+		// per group: Kahan sum, compensation, count and simple sum, as in Collectors.averagingDouble
+		double[] sums = aggregateDouble(parallel, (from, to) -> {
+			double[] partial = new double[4 * dictionary.length];
+			for (int i = from; i < to; i++) {
+				int g = nameCodes[i] << 2;
+				double value = price[i] / qty[i];
+				double y = value - partial[g + 1];
+				double sum = partial[g];
+				double t = sum + y;
+				partial[g + 1] = (t - sum) - y;
+				partial[g] = t;
+				partial[g + 2]++;
+				partial[g + 3] += value;
+			}
+			return partial;
+		});
+		Map<String, Double> result = new HashMap<>();
+		for (int code = 0; code < dictionary.length; code++) {
+			int g = code << 2;
+			if (sums[g + 2] > 0) {
+				double sum = sums[g] - sums[g + 1];
+				if (Double.isNaN(sum) && Double.isInfinite(sums[g + 3])) {
+					sum = sums[g + 3];
+				}
+				result.put(dictionary[code], sum / sums[g + 2]);
+			}
+		}
+		return result;
+	}
+
+	// groupingBy(Item::getPrice, mapping(Item::getName, toSet()))
+	public Map<Double, Set<String>> namesByPrice() {
+		Map<Double, boolean[]> seen = new HashMap<>();
+		double lastPrice = Double.NaN;
+		boolean[] last = null;
+		for (int i = 0; i < price.length; i++) {
+			// prices repeat in runs in typical inputs, so skip the map lookup for a repeated price
+			if (last == null || Double.compare(price[i], lastPrice) != 0) {
+				lastPrice = price[i];
+				last = seen.computeIfAbsent(lastPrice, p -> new boolean[dictionary.length]);
+			}
+			last[nameCodes[i]] = true;
+		}
+		Map<Double, Set<String>> result = new HashMap<>();
+		for (Map.Entry<Double, boolean[]> entry : seen.entrySet()) {
+			result.put(entry.getKey(), names(entry.getValue()));
+		}
+		return result;
+	}
+
+	// partitioningBy(item -> item.getPrice() > threshold, mapping(Item::getName, toSet()))
+	public Map<Boolean, Set<String>> partitionNamesByPrice(double threshold, boolean parallel) {
+		// one flag per name and side: [code] for "<= threshold", [n + code] for "> threshold"
+		long[] flags = aggregate(parallel, (from, to) -> {
+			int n = dictionary.length;
+			long[] partial = new long[2 * n];
+			for (int i = from; i < to; i++) {
+				partial[(price[i] > threshold ? n : 0) + nameCodes[i]] = 1;
+			}
+			return partial;
+		});
+		int n = dictionary.length;
+		boolean[] cheap = new boolean[n];
+		boolean[] expensive = new boolean[n];
+		for (int code = 0; code < n; code++) {
+			cheap[code] = flags[code] != 0;
+			expensive[code] = flags[n + code] != 0;
+		}
+		Map<Boolean, Set<String>> result = new HashMap<>();
+		result.put(false, names(cheap));
+		result.put(true, names(expensive));
+		return result;
+	}
+
+	private Set<String> names(boolean[] present) {
+		Set<String> names = new HashSet<>();
+		for (int code = 0; code < present.length; code++) {
+			if (present[code]) {
+				names.add(dictionary[code]);
+			}
+		}
+		return names;
+	}
+
+	private interface LongKernel {
+		long[] apply(int from, int to);
+	}
+
+	private interface DoubleKernel {
+		double[] apply(int from, int to);
+	}
+
+	private long[] aggregate(boolean parallel, LongKernel kernel) {
+		if (!parallel || size() <= CHUNK_ROWS) {
+			return kernel.apply(0, size());
+		}
+		return chunks().parallel()
+				.mapToObj(chunk -> kernel.apply(chunk * CHUNK_ROWS, Math.min(size(), (chunk + 1) * CHUNK_ROWS)))
+				.reduce((a, b) -> {
+					for (int i = 0; i < a.length; i++) {
+						a[i] += b[i];
+					}
+					return a;
+				}).get();
+	}
+
+	// Partials are combined component-wise; for the averaging layout the Kahan terms of two
+	// chunks are added like Collectors.averagingDouble's combiner does.
+	private double[] aggregateDouble(boolean parallel, DoubleKernel kernel) {
+		if (!parallel || size() <= CHUNK_ROWS) {
+			return kernel.apply(0, size());
+		}
+		return chunks().parallel()
+				.mapToObj(chunk -> kernel.apply(chunk * CHUNK_ROWS, Math.min(size(), (chunk + 1) * CHUNK_ROWS)))
+				.reduce((a, b) -> {
+					for (int g = 0; g < a.length; g += 4) {
+						double y = b[g] - a[g + 1];
+						double sum = a[g];
+						double t = sum + y;
+						a[g + 1] = (t - sum) - y;
+						a[g] = t;
+						y = -b[g + 1] - a[g + 1];
+						sum = a[g];
+						t = sum + y;
+						a[g + 1] = (t - sum) - y;
+						a[g] = t;
+						a[g + 2] += b[g + 2];
+						a[g + 3] += b[g + 3];
+					}
+					return a;
+				}).get();
+	}
+
+	private IntStream chunks() {
+		return IntStream.range(0, (size() + CHUNK_ROWS - 1) / CHUNK_ROWS);
+	}
+
+	// Appends rows column by column, encoding names as they arrive.
+	public static final class Builder {
+
+		private final Map<String, Integer> codes = new HashMap<>();
+		private String[] dictionary = new String[16];
+		private int[] nameCodes;
+		private int[] qty;
+		private double[] price;
+		private int size;
+
+		public Builder() {
+			this(16);
+		}
+
+		public Builder(int expectedRows) {
+			int capacity = Math.max(expectedRows, 16);
+			nameCodes = new int[capacity];
+			qty = new int[capacity];
+			price = new double[capacity];
+		}
+
+		public Builder add(String name, int qty, double price) {
+			if (size == nameCodes.length) {
+				int capacity = size + (size >> 1);
+				nameCodes = Arrays.copyOf(nameCodes, capacity);
+				this.qty = Arrays.copyOf(this.qty, capacity);
+				this.price = Arrays.copyOf(this.price, capacity);
+			}
+			nameCodes[size] = encode(name);
+			this.qty[size] = qty;
+			this.price[size] = price;
+			size++;
+			return this;
+		}
+
+		private int encode(String name) {
+			Integer code = codes.get(name);
+			if (code == null) {
+				code = codes.size();
+				codes.put(name, code);
+				if (code == dictionary.length) {
+					dictionary = Arrays.copyOf(dictionary, code << 1);
+				}
+				dictionary[code] = name;
+			}
+			return code;
+		}
+
+		public ColumnarItemTable build() {
+			return new ColumnarItemTable(Arrays.copyOf(dictionary, codes.size()), Arrays.copyOf(nameCodes, size),
+					Arrays.copyOf(qty, size), Arrays.copyOf(price, size));
+		}
+	}
+}
@@ -0,0 +1,209 @@
+package java8app.dictionary;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+// groupingBy for records whose key is a StringDictionary code. The accumulators are arrays
+// indexed by code, so an element costs an array access instead of hashing and comparing its
+// key string; codes are decoded once per group, when the result map is built. The results
+// equal the matching Collectors on the decoded keys.
+//
+// Accumulators start out as long as the dictionary and grow with higher codes. When one
+// dictionary serves columns of very different cardinality, give each column its own, so a
+// grouping on a small column does not allocate arrays sized for a large one.
+public final class DictionaryCollectors {
+
+	private DictionaryCollectors() {
+	}
+
+	// groupingBy(key)
+	public static <T> Collector<T, ?, Map<String, List<T>>> groupingBy(StringDictionary dictionary,
+			ToIntFunction<? super T> code) {
+		return groupingBy(dictionary, code, Collectors.toList());
+	}
+
+	// groupingBy(key, downstream)
+	public static <T, A, D> Collector<T, ?, Map<String, D>> groupingBy(StringDictionary dictionary,
+			ToIntFunction<? super T> code, Collector<? super T, A, D> downstream) {
+		Supplier<A> supplier = downstream.supplier();
+		BiConsumer<A, ? super T> accumulator = downstream.accumulator();
+		BinaryOperator<A> combiner = downstream.combiner();
+		Function<A, D> finisher = downstream.finisher();
+		Collector.Characteristics[] characteristics = downstream.characteristics()
+				.contains(Collector.Characteristics.UNORDERED)
+						? new Collector.Characteristics[] {Collector.Characteristics.UNORDERED}
+						: new Collector.Characteristics[0];
+		return Collector.<T, Groups<A>, Map<String, D>>of(
+				() -> new Groups<>(dictionary.size()),
+				(groups, t) -> {
+					int c = code.applyAsInt(t);
+					A container = groups.get(c);
+					if (container == null) {
+						container = supplier.get();
+						groups.set(c, container);
+					}
+					accumulator.accept(container, t);
+				},
+				(left, right) -> {
+					for (int c = 0; c < right.containers.length; c++) {
+						A container = right.get(c);
+						if (container != null) {
+							A existing = left.get(c);
+							left.set(c, existing == null ? container : combiner.apply(existing, container));
+						}
+					}
+					return left;
+				},
+				groups -> {
+					Map<String, D> result = new HashMap<>();
+					for (int c = 0; c < groups.containers.length; c++) {
+						A container = groups.get(c);
+						if (container != null) {
+							result.put(dictionary.decode(c), finisher.apply(container));
+						}
+					}
+					return result;
+				},
+				characteristics);
+	}
+
+	// groupingBy(key, counting())
+	public static <T> Collector<T, ?, Map<String, Long>> counting(StringDictionary dictionary,
+			ToIntFunction<? super T> code) {
+		return Collector.<T, Counts, Map<String, Long>>of(
+				() -> new Counts(dictionary.size()),
+				(counts, t) -> counts.add(code.applyAsInt(t), 1),
+				Counts::merge,
+				counts -> {
+					Map<String, Long> result = new HashMap<>();
+					for (int c = 0; c < counts.counts.length; c++) {
+						if (counts.counts[c] > 0) {
+							result.put(dictionary.decode(c), counts.counts[c]);
+						}
+					}
+					return result;
+				},
+				Collector.Characteristics.UNORDERED);
+	}
+
+	// groupingBy(key, summingInt(mapper))
+	public static <T> Collector<T, ?, Map<String, Integer>> summingInt(StringDictionary dictionary,
+			ToIntFunction<? super T> code, ToIntFunction<? super T> mapper) {
+		return Collector.<T, Counts, Map<String, Integer>>of(
+				() -> new Counts(dictionary.size()),
+				(counts, t) -> counts.add(code.applyAsInt(t), mapper.applyAsInt(t)),
+				Counts::merge,
+				counts -> {
+					Map<String, Integer> result = new HashMap<>();
+					for (int c = 0; c < counts.counts.length; c++) {
+						if (counts.seen[c]) {
+							result.put(dictionary.decode(c), (int) counts.counts[c]);
+						}
+					}
+					return result;
+				},
+				Collector.Characteristics.UNORDERED);
+	}
+
+	// counting() followed by the "count desc, then key asc" sort of groupingAndSortingOnStream().
+	public static <T> Collector<T, ?, LinkedHashMap<String, Long>> countingSortedByCount(StringDictionary dictionary,
+			ToIntFunction<? super T> code) {
+		return Collector.<T, Counts, LinkedHashMap<String, Long>>of(
+				() -> new Counts(dictionary.size()),
+				(counts, t) -> counts.add(code.applyAsInt(t), 1),
+				Counts::merge,
+				counts -> {
+					long[] values = counts.counts;
+					Integer[] codes = new Integer[values.length];
+					String[] keys = new String[values.length];
+					int n = 0;
+					for (int c = 0; c < values.length; c++) {
+						if (values[c] > 0) {
+							codes[n++] = c;
+							keys[c] = dictionary.decode(c);
+						}
+					}
+					Arrays.sort(codes, 0, n, (a, b) -> {
+						int byCount = Long.compare(values[b], values[a]);
+						return byCount != 0 ? byCount : keys[a].compareTo(keys[b]);
+					});
+					LinkedHashMap<String, Long> sorted = new LinkedHashMap<>();
+					for (int i = 0; i < n; i++) {
+						sorted.put(keys[codes[i]], values[codes[i]]);
+					}
+					return sorted;
+				},
+				Collector.Characteristics.UNORDERED);
+	}
+
+	private static int grownLength(int length, int code) {
+		if (code < 0) {
+			throw new IllegalArgumentException("Negative dictionary code " + code);
+		}
+		return Math.max(code + 1, 2 * length);
+	}
+
+	// Downstream containers by code; null where the code has not occurred.
+	private static final class Groups<A> {
+
+		Object[] containers;
+
+		Groups(int length) {
+			containers = new Object[length];
+		}
+
+		@SuppressWarnings("unchecked")
+		A get(int code) {
+			return code >= 0 && code < containers.length ? (A) containers[code] : null;
+		}
+
+		void set(int code, A container) {
+			if (code < 0 || code >= containers.length) {
+				containers = Arrays.copyOf(containers, grownLength(containers.length, code));
+			}
+			containers[code] = container;
+		}
+	}
+
+	// Sums by code, with a flag per code so that groups summing to zero are still reported.
+	private static final class Counts {
+
+		long[] counts;
+		boolean[] seen;
+
+		Counts(int length) {
+			counts = new long[length];
+			seen = new boolean[length];
+		}
+
+		void add(int code, long delta) {
+			if (code < 0 || code >= counts.length) {
+				int length = grownLength(counts.length, code);
+				counts = Arrays.copyOf(counts, length);
+				seen = Arrays.copyOf(seen, length);
+			}
+			counts[code] += delta;
+			seen[code] = true;
+		}
+
+		Counts merge(Counts other) {
+			Counts target = counts.length >= other.counts.length ? this : other;
+			Counts source = target == this ? other : this;
+			for (int c = 0; c < source.counts.length; c++) {
+				target.counts[c] += source.counts[c];
+				target.seen[c] |= source.seen[c];
+			}
+			return target;
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package java8app.dictionary;
+
+import java8app.model.Item;
+
+// Item with its name dictionary encoded, for the groupings of groupCountMappingOnStreams().
+public final class EncodedItem {
+
+	private final int name;
+	private final int qty;
+	private final double price;
+
+	public EncodedItem(int name, int qty, double price) {
+		this.name = name;
+		this.qty = qty;
+		this.price = price;
+	}
+
+	public static EncodedItem encode(Item item, StringDictionary dictionary) {
+		return new EncodedItem(dictionary.encode(item.getName()), item.getQty(), item.getPrice());
+	}
+
+	public Item decode(StringDictionary dictionary) {
+		return new Item(dictionary.decode(name), qty, price);
+	}
+
+	public int getName() {
+		return name;
+	}
+
+	public int getQty() {
+		return qty;
+	}
+
+	public double getPrice() {
+		return price;
+	}
+
+	@Override
+	public String toString() {
+		return "EncodedItem[" + name + ", " + qty + ", " + price + "]";
+	}
+}
@@ -0,0 +1,59 @@
+package java8app.dictionary;
+
+import java8app.model.Person;
+
+// Person with its state and city dictionary encoded, for the groupings of groupingByOnStreams().
+// The name is kept as a string: it repeats too little to be worth a code.
+public final class EncodedPerson {
+
+	private final String name;
+	private final int age;
+	private final int state;
+	private final int city;
+
+	public EncodedPerson(String name, int age, int state, int city) {
+		this.name = name;
+		this.age = age;
+		this.state = state;
+		this.city = city;
+	}
+
+	public static EncodedPerson encode(Person person, StringDictionary dictionary) {
+		return encode(person, dictionary, dictionary);
+	}
+
+	// With a dictionary per column, so state codes stay as dense as the states themselves.
+	public static EncodedPerson encode(Person person, StringDictionary states, StringDictionary cities) {
+		return new EncodedPerson(person.getName(), person.getAge(), states.encode(person.getState()),
+				cities.encode(person.getCity()));
+	}
+
+	public Person decode(StringDictionary dictionary) {
+		return decode(dictionary, dictionary);
+	}
+
+	public Person decode(StringDictionary states, StringDictionary cities) {
+		return new Person(name, age, states.decode(state), cities.decode(city));
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getAge() {
+		return age;
+	}
+
+	public int getState() {
+		return state;
+	}
+
+	public int getCity() {
+		return city;
+	}
+
+	@Override
+	public String toString() {
+		return "EncodedPerson[" + name + ", " + age + ", " + state + ", " + city + "]";
+	}
+}
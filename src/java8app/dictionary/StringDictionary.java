@@ -0,0 +1,82 @@
+package java8app.dictionary;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Shared, thread-safe mapping of repeated strings (states, cities, fruit names) to dense int
+// codes 0, 1, 2, ... in first-seen order. Records encoded at ingest hold an int instead of their
+// own copy of the string, and the DictionaryCollectors group on those ints with arrays indexed
+// by code. Codes are stable for the life of the dictionary; strings are never removed.
+//
+// Lookups of known strings are a ConcurrentHashMap get; only a new string takes the lock.
+public final class StringDictionary {
+
+	private final ConcurrentHashMap<String, Integer> codes;
+	// Written before the code is published through `codes`, so whoever holds a code can decode it.
+	private volatile String[] strings;
+	private int size;
+
+	public StringDictionary() {
+		this(16);
+	}
+
+	public StringDictionary(int expectedSize) {
+		this.codes = new ConcurrentHashMap<>(expectedSize);
+		this.strings = new String[Math.max(expectedSize, 1)];
+	}
+
+	public int encode(String value) {
+		Integer code = codes.get(Objects.requireNonNull(value, "value"));
+		return code != null ? code : add(value);
+	}
+
+	// The code of the value, or -1 when it was never encoded.
+	public int code(String value) {
+		Integer code = codes.get(Objects.requireNonNull(value, "value"));
+		return code != null ? code : -1;
+	}
+
+	public String decode(int code) {
+		String[] strings = this.strings;
+		if (code < 0 || code >= strings.length || strings[code] == null) {
+			throw new IllegalArgumentException("Unknown code " + code);
+		}
+		return strings[code];
+	}
+
+	// The dictionary's own instance of the value, to share one copy among records that keep strings.
+	public String canonical(String value) {
+		return decode(encode(value));
+	}
+
+	public int size() {
+		return codes.size();
+	}
+
+	// Approximate retained size of the strings, the code table and the decode array.
+	public long heapBytes() {
+		long bytes = 16 + 8L * strings.length;
+		for (String value : codes.keySet()) {
+			bytes += 40 + 2L * value.length() + 48 + 16;
+		}
+		return bytes;
+	}
+
+	private synchronized int add(String value) {
+		Integer existing = codes.get(value);
+		if (existing != null) {
+			return existing;
+		}
+		int code = size;
+		String[] strings = this.strings;
+		if (code == strings.length) {
+			strings = Arrays.copyOf(strings, strings.length * 2);
+		}
+		strings[code] = value;
+		this.strings = strings;
+		size = code + 1;
+		codes.put(value, code);
+		return code;
+	}
+}
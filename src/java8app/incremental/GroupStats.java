@@ -0,0 +1,53 @@
+package java8app.incremental;
+
+// Immutable aggregate of one group: the element count, a long sum (e.g. summingInt of qty) and
+// a double sum for averages (e.g. averagingDouble of price per qty). Inserts add, retractions
+// subtract, so the totals never have to be recomputed from the elements.
+public final class GroupStats {
+
+	public static final GroupStats EMPTY = new GroupStats(0, 0, 0.0);
+
+	private final long count;
+	private final long longSum;
+	private final double doubleSum;
+
+	public GroupStats(long count, long longSum, double doubleSum) {
+		this.count = count;
+		this.longSum = longSum;
+		this.doubleSum = doubleSum;
+	}
+
+	public long count() {
+		return count;
+	}
+
+	public long longSum() {
+		return longSum;
+	}
+
+	public double doubleSum() {
+		return doubleSum;
+	}
+
+	// Mean of the double values, 0 for an empty group as in averagingDouble.
+	public double average() {
+		return count == 0 ? 0.0 : doubleSum / count;
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	public GroupStats plus(GroupStats other) {
+		return new GroupStats(count + other.count, longSum + other.longSum, doubleSum + other.doubleSum);
+	}
+
+	public GroupStats minus(GroupStats other) {
+		return new GroupStats(count - other.count, longSum - other.longSum, doubleSum - other.doubleSum);
+	}
+
+	@Override
+	public String toString() {
+		return "GroupStats[count=" + count + ", sum=" + longSum + ", avg=" + average() + "]";
+	}
+}
@@ -0,0 +1,114 @@
+package java8app.incremental;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+// Live version of the aggregations in groupCountMappingOnStreams() (count per name, sum of qty,
+// average price per pound) for items that keep arriving: insert() and retract() adjust one
+// group in O(1) instead of re-running collect() over every item.
+//
+// Each group's GroupStats is swapped in with a compare-and-set, so writers on different
+// threads never lock and readers always see a consistent count/sum/average for a group
+// without blocking the writers. A snapshot of several groups is not atomic across groups.
+// Double sums accumulate rounding error over long runs of inserts and retractions.
+public final class IncrementalAggregator<T, K> {
+
+	private final Function<? super T, ? extends K> classifier;
+	private final ToLongFunction<? super T> longValue;
+	private final ToDoubleFunction<? super T> doubleValue;
+	// Marks a group that has been emptied and is being removed; never handed out to readers.
+	private static final GroupStats RETIRED = new GroupStats(0, 0, 0.0);
+
+	private final ConcurrentHashMap<K, AtomicReference<GroupStats>> groups = new ConcurrentHashMap<>();
+
+	public IncrementalAggregator(Function<? super T, ? extends K> classifier, ToLongFunction<? super T> longValue,
+			ToDoubleFunction<? super T> doubleValue) {
+		this.classifier = Objects.requireNonNull(classifier);
+		this.longValue = Objects.requireNonNull(longValue);
+		this.doubleValue = Objects.requireNonNull(doubleValue);
+	}
+
+	public void insert(T t) {
+		apply(classifier.apply(t), 1, longValue.applyAsLong(t), doubleValue.applyAsDouble(t));
+	}
+
+	// Removes a previously inserted element's contribution.
+	public void retract(T t) {
+		apply(classifier.apply(t), -1, -longValue.applyAsLong(t), -doubleValue.applyAsDouble(t));
+	}
+
+	// Adds (or with negative values, removes) a whole pre-aggregated delta to one group.
+	public void apply(K key, GroupStats delta) {
+		apply(key, delta.count(), delta.longSum(), delta.doubleSum());
+	}
+
+	// A group whose count drops to 0 is retired and removed from the map, so churning keys do
+	// not accumulate. A writer that finds its group retired goes back to the map, where it
+	// finds or creates the group's replacement.
+	private void apply(K key, long count, long longSum, double doubleSum) {
+		while (true) {
+			AtomicReference<GroupStats> group = groups.get(key);
+			if (group == null) {
+				group = groups.computeIfAbsent(key, k -> new AtomicReference<>(GroupStats.EMPTY));
+			}
+			GroupStats current = group.get();
+			if (current == RETIRED) {
+				continue;
+			}
+			GroupStats next = new GroupStats(current.count() + count, current.longSum() + longSum,
+					current.doubleSum() + doubleSum);
+			if (!group.compareAndSet(current, next)) {
+				continue;
+			}
+			if (next.isEmpty() && group.compareAndSet(next, RETIRED)) {
+				groups.remove(key, group);
+			}
+			return;
+		}
+	}
+
+	public GroupStats get(K key) {
+		AtomicReference<GroupStats> group = groups.get(key);
+		GroupStats stats = group == null ? null : group.get();
+		return stats == null || stats == RETIRED ? GroupStats.EMPTY : stats;
+	}
+
+	// Non-empty groups at the time of the call.
+	public Map<K, GroupStats> snapshot() {
+		Map<K, GroupStats> snapshot = new HashMap<>();
+		groups.forEach((key, group) -> {
+			GroupStats stats = group.get();
+			if (!stats.isEmpty()) {
+				snapshot.put(key, stats);
+			}
+		});
+		return snapshot;
+	}
+
+	// groupingBy(classifier, counting())
+	public Map<K, Long> counts() {
+		Map<K, Long> counts = new HashMap<>();
+		snapshot().forEach((key, stats) -> counts.put(key, stats.count()));
+		return counts;
+	}
+
+	// groupingBy(classifier, summingLong(longValue))
+	public Map<K, Long> sums() {
+		Map<K, Long> sums = new HashMap<>();
+		snapshot().forEach((key, stats) -> sums.put(key, stats.longSum()));
+		return sums;
+	}
+
+	// groupingBy(classifier, averagingDouble(doubleValue))
+	public Map<K, Double> averages() {
+		Map<K, Double> averages = new HashMap<>();
+		snapshot().forEach((key, stats) -> averages.put(key, stats.average()));
+		return averages;
+	}
+}
@@ -0,0 +1,175 @@
+package java8app.incremental;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+// Group aggregates over a time window that moves with the element timestamps. The window is
+// split into panes of one slide each (a tumbling window is a single pane). Every element is
+// added both to its pane and to a running aggregate of the whole window; when the window
+// slides past a pane, the pane's per-group totals are retracted from the running aggregate in
+// one step. Each element is therefore touched a constant number of times, and the current
+// window's result is always ready to read, lock-free, from the running aggregate.
+//
+// Elements older than the current window are dropped and counted in lateElements(). Writers
+// on several threads proceed in parallel; they only wait for each other while the window
+// slides.
+public final class WindowedAggregator<T, K> {
+
+	private final Function<? super T, ? extends K> classifier;
+	private final ToLongFunction<? super T> longValue;
+	private final ToDoubleFunction<? super T> doubleValue;
+	private final ToLongFunction<? super T> timestamp;
+	private final long slideMillis;
+	private final int panesPerWindow;
+
+	private final IncrementalAggregator<T, K> window;
+	// Pane i of the current window lives in slot i % panesPerWindow.
+	private final Pane<T, K>[] ring;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final AtomicLong lateElements = new AtomicLong();
+	// Index of the newest pane, i.e. timestamp / slideMillis; Long.MIN_VALUE before the first element.
+	private volatile long newestPane = Long.MIN_VALUE;
+
+	private WindowedAggregator(Function<? super T, ? extends K> classifier, ToLongFunction<? super T> longValue,
+			ToDoubleFunction<? super T> doubleValue, ToLongFunction<? super T> timestamp, long windowMillis,
+			long slideMillis) {
+		if (slideMillis <= 0 || windowMillis < slideMillis || windowMillis % slideMillis != 0) {
+			throw new IllegalArgumentException("The window must be a positive multiple of the slide");
+		}
+		this.classifier = Objects.requireNonNull(classifier);
+		this.longValue = Objects.requireNonNull(longValue);
+		this.doubleValue = Objects.requireNonNull(doubleValue);
+		this.timestamp = Objects.requireNonNull(timestamp);
+		this.slideMillis = slideMillis;
+		this.panesPerWindow = (int) (windowMillis / slideMillis);
+		this.window = new IncrementalAggregator<>(classifier, longValue, doubleValue);
+		@SuppressWarnings("unchecked")
+		Pane<T, K>[] ring = (Pane<T, K>[]) new Pane<?, ?>[panesPerWindow];
+		this.ring = ring;
+	}
+
+	public static <T, K> WindowedAggregator<T, K> tumbling(Function<? super T, ? extends K> classifier,
+			ToLongFunction<? super T> longValue, ToDoubleFunction<? super T> doubleValue,
+			ToLongFunction<? super T> timestamp, long windowMillis) {
+		return new WindowedAggregator<>(classifier, longValue, doubleValue, timestamp, windowMillis, windowMillis);
+	}
+
+	public static <T, K> WindowedAggregator<T, K> sliding(Function<? super T, ? extends K> classifier,
+			ToLongFunction<? super T> longValue, ToDoubleFunction<? super T> doubleValue,
+			ToLongFunction<? super T> timestamp, long windowMillis, long slideMillis) {
+		return new WindowedAggregator<>(classifier, longValue, doubleValue, timestamp, windowMillis, slideMillis);
+	}
+
+	public void insert(T t) {
+		long pane = Math.floorDiv(timestamp.applyAsLong(t), slideMillis);
+		if (pane > newestPane) {
+			advance(pane);
+		}
+		lock.readLock().lock();
+		try {
+			Pane<T, K> target = find(pane);
+			if (target == null) {
+				lateElements.incrementAndGet();
+				return;
+			}
+			target.aggregator.insert(t);
+			window.insert(t);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Slides the window so that it ends with the pane holding time, e.g. on a clock tick when no
+	// elements arrive.
+	public void advanceTo(long timeMillis) {
+		long pane = Math.floorDiv(timeMillis, slideMillis);
+		if (pane > newestPane) {
+			advance(pane);
+		}
+	}
+
+	// Aggregates of the current window, per group.
+	public GroupStats get(K key) {
+		return window.get(key);
+	}
+
+	public Map<K, GroupStats> snapshot() {
+		return window.snapshot();
+	}
+
+	public Map<K, Long> counts() {
+		return window.counts();
+	}
+
+	public Map<K, Long> sums() {
+		return window.sums();
+	}
+
+	public Map<K, Double> averages() {
+		return window.averages();
+	}
+
+	// Start of the current window in milliseconds, or Long.MIN_VALUE before the first element.
+	public long windowStart() {
+		long newest = newestPane;
+		return newest == Long.MIN_VALUE ? Long.MIN_VALUE : (newest - panesPerWindow + 1) * slideMillis;
+	}
+
+	public long lateElements() {
+		return lateElements.get();
+	}
+
+	private void advance(long pane) {
+		lock.writeLock().lock();
+		try {
+			long newest = newestPane;
+			if (pane <= newest) {
+				return;
+			}
+			// recycle the slots of panes that fell out of the window, at most one full turn
+			long first = newest == Long.MIN_VALUE ? pane - panesPerWindow + 1 : Math.max(newest + 1, pane - panesPerWindow + 1);
+			for (long index = first; index <= pane; index++) {
+				int slot = (int) Math.floorMod(index, (long) panesPerWindow);
+				Pane<T, K> expired = ring[slot];
+				if (expired != null) {
+					retract(expired);
+				}
+				ring[slot] = new Pane<>(index, new IncrementalAggregator<T, K>(classifier, longValue, doubleValue));
+			}
+			newestPane = pane;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void retract(Pane<T, K> expired) {
+		expired.aggregator.snapshot().forEach((key, stats) ->
+				window.apply(key, GroupStats.EMPTY.minus(stats)));
+	}
+
+	// Called with the read lock held, so the ring does not change underneath.
+	private Pane<T, K> find(long index) {
+		if (index <= newestPane - panesPerWindow) {
+			return null;
+		}
+		Pane<T, K> pane = ring[(int) Math.floorMod(index, (long) panesPerWindow)];
+		return pane != null && pane.index == index ? pane : null;
+	}
+
+	private static final class Pane<T, K> {
+
+		final long index;
+		final IncrementalAggregator<T, K> aggregator;
+
+		Pane(long index, IncrementalAggregator<T, K> aggregator) {
+			this.index = index;
+			this.aggregator = aggregator;
+		}
+	}
+}
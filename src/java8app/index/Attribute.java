@@ -0,0 +1,74 @@
+package java8app.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+// A named field of T that queries and indexes refer to, e.g.
+// Attribute.of("name", Person::getName). Attributes are compared by identity, so define each
+// one once and share it between the indexes and the queries.
+public final class Attribute<T, V> {
+
+	private final String name;
+	private final Function<? super T, ? extends V> getter;
+	private final List<Attribute<T, ?>> parts;
+
+	private Attribute(String name, Function<? super T, ? extends V> getter, List<Attribute<T, ?>> parts) {
+		this.name = Objects.requireNonNull(name);
+		this.getter = Objects.requireNonNull(getter);
+		this.parts = parts;
+	}
+
+	public static <T, V> Attribute<T, V> of(String name, Function<? super T, ? extends V> getter) {
+		return new Attribute<>(name, getter, Collections.emptyList());
+	}
+
+	// Attribute whose value is the list of the parts' values, for composite indexes such as
+	// name + age. A hash index on it answers and(equal(name, ..), equal(age, ..)).
+	@SafeVarargs
+	public static <T> Attribute<T, List<Object>> composite(Attribute<T, ?>... parts) {
+		if (parts.length < 2) {
+			throw new IllegalArgumentException("A composite attribute needs at least two parts");
+		}
+		// Copied element by element: handing the generic array to another varargs method or
+		// keeping it would defeat @SafeVarargs.
+		List<Attribute<T, ?>> copy = new ArrayList<>(parts.length);
+		StringBuilder name = new StringBuilder();
+		for (Attribute<T, ?> part : parts) {
+			copy.add(part);
+			name.append(name.length() == 0 ? "" : "+").append(part.name);
+		}
+		List<Attribute<T, ?>> partList = Collections.unmodifiableList(copy);
+		return new Attribute<>(name.toString(), t -> {
+			Object[] values = new Object[partList.size()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = partList.get(i).get(t);
+			}
+			return Arrays.asList(values);
+		}, partList);
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public V get(T t) {
+		return getter.apply(t);
+	}
+
+	List<Attribute<T, ?>> parts() {
+		return parts;
+	}
+
+	boolean isComposite() {
+		return !parts.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,119 @@
+package java8app.index;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// HashMap that also indexes its values, for the lookups of filteringAMap(): finding the keys of
+// a value ("aws.amazon.com") is a hash lookup in the inverse index instead of a scan of the
+// entry set. Several keys may share a value, so the inverse maps each value to the set of its
+// keys, in insertion order. filter() answers keyIs() with get(), valueIs() with the inverse
+// index, and only scans for where().
+//
+// Change the map through put, remove and clear; the collection views are read-only so the
+// inverse index cannot go stale. Not thread-safe.
+public final class BiIndexedMap<K, V> extends AbstractMap<K, V> {
+
+	private final Map<K, V> forward;
+	private final Map<V, Set<K>> inverse;
+
+	public BiIndexedMap() {
+		forward = new HashMap<>();
+		inverse = new HashMap<>();
+	}
+
+	public BiIndexedMap(Map<? extends K, ? extends V> map) {
+		forward = new HashMap<>(Math.max(16, (int) (map.size() / 0.75f) + 1));
+		inverse = new HashMap<>();
+		putAll(map);
+	}
+
+	@Override
+	public V put(K key, V value) {
+		boolean present = forward.containsKey(key);
+		V old = forward.put(key, value);
+		if (present) {
+			unindex(key, old);
+		}
+		inverse.computeIfAbsent(value, v -> new LinkedHashSet<>()).add(key);
+		return old;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		if (!forward.containsKey(key)) {
+			return null;
+		}
+		V old = forward.remove(key);
+		unindex((K) key, old);
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		forward.clear();
+		inverse.clear();
+	}
+
+	@Override
+	public V get(Object key) {
+		return forward.get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return forward.containsKey(key);
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return inverse.containsKey(value);
+	}
+
+	@Override
+	public int size() {
+		return forward.size();
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		return Collections.unmodifiableMap(forward).entrySet();
+	}
+
+	// Keys currently mapped to value; empty if there are none.
+	public Set<K> keysOf(Object value) {
+		Set<K> keys = inverse.get(value);
+		return keys == null ? Collections.<K>emptySet() : Collections.unmodifiableSet(keys);
+	}
+
+	// Read-only value -> keys view, kept in step with the map.
+	public Map<V, Set<K>> inverse() {
+		return Collections.unmodifiableMap(inverse);
+	}
+
+	public Stream<Entry<K, V>> filter(EntryFilter<K, V> filter) {
+		if (filter instanceof EntryFilter.KeyIs) {
+			K key = ((EntryFilter.KeyIs<K, V>) filter).key;
+			return forward.containsKey(key)
+					? Stream.of(new SimpleImmutableEntry<>(key, forward.get(key)))
+					: Stream.empty();
+		}
+		if (filter instanceof EntryFilter.ValueIs) {
+			V value = ((EntryFilter.ValueIs<K, V>) filter).value;
+			return keysOf(value).stream().map(key -> new SimpleImmutableEntry<>(key, value));
+		}
+		return entrySet().stream().filter(entry -> filter.test(entry.getKey(), entry.getValue()));
+	}
+
+	private void unindex(K key, V value) {
+		Set<K> keys = inverse.get(value);
+		if (keys != null && keys.remove(key) && keys.isEmpty()) {
+			inverse.remove(value);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package java8app.index;
+
+import java.util.Objects;
+import java.util.function.BiPredicate;
+
+// Condition on a map entry for BiIndexedMap.filter(). keyIs() is answered with a forward
+// get(), valueIs() through the inverse index, and where() by scanning the entries.
+public abstract class EntryFilter<K, V> implements BiPredicate<K, V> {
+
+	EntryFilter() {
+	}
+
+	public static <K, V> EntryFilter<K, V> keyIs(K key) {
+		return new KeyIs<>(key);
+	}
+
+	public static <K, V> EntryFilter<K, V> valueIs(V value) {
+		return new ValueIs<>(value);
+	}
+
+	public static <K, V> EntryFilter<K, V> where(BiPredicate<? super K, ? super V> predicate) {
+		return new Where<>(predicate);
+	}
+
+	static final class KeyIs<K, V> extends EntryFilter<K, V> {
+
+		final K key;
+
+		KeyIs(K key) {
+			this.key = key;
+		}
+
+		@Override
+		public boolean test(K k, V v) {
+			return Objects.equals(key, k);
+		}
+	}
+
+	static final class ValueIs<K, V> extends EntryFilter<K, V> {
+
+		final V value;
+
+		ValueIs(V value) {
+			this.value = value;
+		}
+
+		@Override
+		public boolean test(K k, V v) {
+			return Objects.equals(value, v);
+		}
+	}
+
+	static final class Where<K, V> extends EntryFilter<K, V> {
+
+		private final BiPredicate<? super K, ? super V> predicate;
+
+		Where(BiPredicate<? super K, ? super V> predicate) {
+			this.predicate = Objects.requireNonNull(predicate);
+		}
+
+		@Override
+		public boolean test(K k, V v) {
+			return predicate.test(k, v);
+		}
+	}
+}
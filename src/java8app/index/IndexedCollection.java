@@ -0,0 +1,304 @@
+package java8app.index;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Collection with secondary indexes, for the lookups of filteringAStream() that otherwise scan
+// the whole list: hash indexes answer equal() (a composite attribute covers name + age), and
+// sorted indexes answer between(), equal() and max()/min(). Indexes are updated on every
+// add and remove. retrieve() picks the most selective index that applies to the query and
+// scans only when none does; explain() shows the choice.
+//
+// Elements are held with set semantics, by equals(). Attribute values of an element must not
+// change while it is in the collection. Not thread-safe.
+public final class IndexedCollection<T> extends AbstractCollection<T> {
+
+	private static final Object NO_KEY = new Object();
+
+	private final Set<T> elements = new LinkedHashSet<>();
+	private final Map<Attribute<T, ?>, Map<Object, Set<T>>> hashIndexes = new LinkedHashMap<>();
+	private final Map<Attribute<T, ?>, NavigableMap<Object, Set<T>>> sortedIndexes = new LinkedHashMap<>();
+
+	public IndexedCollection<T> addHashIndex(Attribute<T, ?> attribute) {
+		Map<Object, Set<T>> index = new HashMap<>();
+		for (T t : elements) {
+			index.computeIfAbsent(attribute.get(t), k -> new HashSet<>()).add(t);
+		}
+		hashIndexes.put(attribute, index);
+		return this;
+	}
+
+	// Elements whose value is null are left out of a sorted index.
+	public <V extends Comparable<? super V>> IndexedCollection<T> addSortedIndex(Attribute<T, V> attribute) {
+		NavigableMap<Object, Set<T>> index = new TreeMap<>();
+		for (T t : elements) {
+			addTo(index, attribute.get(t), t);
+		}
+		sortedIndexes.put(attribute, index);
+		return this;
+	}
+
+	@Override
+	public boolean add(T t) {
+		if (!elements.add(t)) {
+			return false;
+		}
+		for (Map.Entry<Attribute<T, ?>, Map<Object, Set<T>>> index : hashIndexes.entrySet()) {
+			index.getValue().computeIfAbsent(index.getKey().get(t), k -> new HashSet<>()).add(t);
+		}
+		for (Map.Entry<Attribute<T, ?>, NavigableMap<Object, Set<T>>> index : sortedIndexes.entrySet()) {
+			addTo(index.getValue(), index.getKey().get(t), t);
+		}
+		return true;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean remove(Object o) {
+		if (!elements.remove(o)) {
+			return false;
+		}
+		unindex((T) o);
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return elements.contains(o);
+	}
+
+	@Override
+	public int size() {
+		return elements.size();
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		Iterator<T> iterator = elements.iterator();
+		return new Iterator<T>() {
+			private T last;
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public T next() {
+				return last = iterator.next();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+				unindex(last);
+			}
+		};
+	}
+
+	public Stream<T> retrieve(Query<T> query) {
+		return plan(query).stream();
+	}
+
+	public Optional<T> findAny(Query<T> query) {
+		return retrieve(query).findAny();
+	}
+
+	// How retrieve() would answer the query, e.g. "hash index name+age" or "scan".
+	public String explain(Query<T> query) {
+		return plan(query).description;
+	}
+
+	// Element with the largest value, from the sorted index when there is one. Elements whose
+	// value is null are ignored.
+	public <V extends Comparable<? super V>> Optional<T> max(Attribute<T, V> attribute) {
+		return extreme(attribute, true);
+	}
+
+	public <V extends Comparable<? super V>> Optional<T> min(Attribute<T, V> attribute) {
+		return extreme(attribute, false);
+	}
+
+	private <V extends Comparable<? super V>> Optional<T> extreme(Attribute<T, V> attribute, boolean max) {
+		NavigableMap<Object, Set<T>> index = sortedIndexes.get(attribute);
+		if (index != null) {
+			Map.Entry<Object, Set<T>> entry = max ? index.lastEntry() : index.firstEntry();
+			return entry == null ? Optional.empty() : Optional.of(entry.getValue().iterator().next());
+		}
+		Comparator<T> order = Comparator.comparing(attribute::get);
+		return elements.stream()
+				.filter(t -> attribute.get(t) != null)
+				.reduce((a, b) -> (max ? order.compare(b, a) > 0 : order.compare(b, a) < 0) ? b : a);
+	}
+
+	private Plan plan(Query<T> query) {
+		if (query instanceof Query.Equal) {
+			Query.Equal<T, ?> equal = (Query.Equal<T, ?>) query;
+			Plan plan = equalPlan(equal.attribute, equal.value, query);
+			if (plan != null) {
+				return plan;
+			}
+		} else if (query instanceof Query.Between) {
+			Plan plan = betweenPlan((Query.Between<T, ?>) query, query);
+			if (plan != null) {
+				return plan;
+			}
+		} else if (query instanceof Query.And) {
+			Plan plan = andPlan((Query.And<T>) query);
+			if (plan != null) {
+				return plan;
+			}
+		}
+		return new Plan("scan", elements::stream, query);
+	}
+
+	private Plan equalPlan(Attribute<T, ?> attribute, Object value, Query<T> residual) {
+		Map<Object, Set<T>> hash = hashIndexes.get(attribute);
+		if (hash != null) {
+			// a hash bucket holds exactly the equal elements, so a lone equal() needs no re-test
+			return bucketPlan("hash index " + attribute, hash.get(value), residual instanceof Query.Equal ? null : residual);
+		}
+		NavigableMap<Object, Set<T>> sorted = sortedIndexes.get(attribute);
+		if (sorted != null && value != null) {
+			return bucketPlan("sorted index " + attribute, sorted.get(value), residual);
+		}
+		return null;
+	}
+
+	private Plan betweenPlan(Query.Between<T, ?> between, Query<T> residual) {
+		NavigableMap<Object, Set<T>> sorted = sortedIndexes.get(between.attribute);
+		if (sorted == null) {
+			return null;
+		}
+		if (isEmpty(between)) {
+			return new Plan("sorted index " + between.attribute, Stream::empty, null);
+		}
+		NavigableMap<Object, Set<T>> range = sorted.subMap(between.lower, true, between.upper, true);
+		return new Plan("sorted index " + between.attribute,
+				() -> range.values().stream().flatMap(Set::stream), residual == between ? null : residual);
+	}
+
+	// Uses the smallest hash bucket among the equality conjuncts (composite indexes included),
+	// then a sorted index; the whole conjunction is re-tested on the candidates.
+	private Plan andPlan(Query.And<T> and) {
+		Map<Attribute<T, ?>, Object> equalities = new HashMap<>();
+		for (Query<T> query : and.queries) {
+			if (query instanceof Query.Equal) {
+				Query.Equal<T, ?> equal = (Query.Equal<T, ?>) query;
+				equalities.put(equal.attribute, equal.value);
+			}
+		}
+		Plan best = null;
+		int bestSize = Integer.MAX_VALUE;
+		for (Map.Entry<Attribute<T, ?>, Map<Object, Set<T>>> index : hashIndexes.entrySet()) {
+			Attribute<T, ?> attribute = index.getKey();
+			Object key = lookupKey(attribute, equalities);
+			if (key == NO_KEY) {
+				continue;
+			}
+			Set<T> bucket = index.getValue().get(key);
+			int size = bucket == null ? 0 : bucket.size();
+			if (size < bestSize) {
+				bestSize = size;
+				best = bucketPlan("hash index " + attribute, bucket, and);
+			}
+		}
+		if (best != null) {
+			return best;
+		}
+		for (Query<T> query : and.queries) {
+			Plan plan = null;
+			if (query instanceof Query.Equal && sortedIndexes.containsKey(((Query.Equal<T, ?>) query).attribute)) {
+				plan = equalPlan(((Query.Equal<T, ?>) query).attribute, ((Query.Equal<T, ?>) query).value, and);
+			} else if (query instanceof Query.Between) {
+				plan = betweenPlan((Query.Between<T, ?>) query, and);
+			}
+			if (plan != null) {
+				return plan;
+			}
+		}
+		return null;
+	}
+
+	// The key to look up for an index attribute, given the equality conjuncts, or NO_KEY.
+	private Object lookupKey(Attribute<T, ?> attribute, Map<Attribute<T, ?>, Object> equalities) {
+		if (!attribute.isComposite()) {
+			return equalities.containsKey(attribute) ? equalities.get(attribute) : NO_KEY;
+		}
+		List<Attribute<T, ?>> parts = attribute.parts();
+		Object[] values = new Object[parts.size()];
+		for (int i = 0; i < values.length; i++) {
+			if (!equalities.containsKey(parts.get(i))) {
+				return NO_KEY;
+			}
+			values[i] = equalities.get(parts.get(i));
+		}
+		return Arrays.asList(values);
+	}
+
+	private Plan bucketPlan(String description, Set<T> bucket, Query<T> residual) {
+		Set<T> candidates = bucket == null ? Collections.<T>emptySet() : bucket;
+		return new Plan(description, candidates::stream, residual);
+	}
+
+	private void unindex(T t) {
+		for (Map.Entry<Attribute<T, ?>, Map<Object, Set<T>>> index : hashIndexes.entrySet()) {
+			removeFrom(index.getValue(), index.getKey().get(t), t);
+		}
+		for (Map.Entry<Attribute<T, ?>, NavigableMap<Object, Set<T>>> index : sortedIndexes.entrySet()) {
+			Object value = index.getKey().get(t);
+			if (value != null) {
+				removeFrom(index.getValue(), value, t);
+			}
+		}
+	}
+
+	private static <T> void addTo(NavigableMap<Object, Set<T>> index, Object value, T t) {
+		if (value != null) {
+			index.computeIfAbsent(value, k -> new HashSet<>()).add(t);
+		}
+	}
+
+	private static <T> void removeFrom(Map<Object, Set<T>> index, Object value, T t) {
+		Set<T> bucket = index.get(value);
+		if (bucket != null && bucket.remove(t) && bucket.isEmpty()) {
+			index.remove(value);
+		}
+	}
+
+	private static <V extends Comparable<? super V>> boolean isEmpty(Query.Between<?, V> between) {
+		return between.lower.compareTo(between.upper) > 0;
+	}
+
+	private final class Plan {
+
+		final String description;
+		private final Supplier<Stream<T>> candidates;
+		private final Query<T> residual;
+
+		Plan(String description, Supplier<Stream<T>> candidates, Query<T> residual) {
+			this.description = description;
+			this.candidates = candidates;
+			this.residual = residual;
+		}
+
+		Stream<T> stream() {
+			return residual == null ? candidates.get() : candidates.get().filter(residual);
+		}
+	}
+}
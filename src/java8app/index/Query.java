@@ -0,0 +1,141 @@
+package java8app.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+// Query over an IndexedCollection. Every query is also a plain Predicate, which is what the
+// collection falls back to when no index applies.
+public abstract class Query<T> implements Predicate<T> {
+
+	Query() {
+	}
+
+	public static <T, V> Query<T> equal(Attribute<T, V> attribute, V value) {
+		return new Equal<>(attribute, value);
+	}
+
+	// lower <= value <= upper
+	public static <T, V extends Comparable<? super V>> Query<T> between(Attribute<T, V> attribute, V lower, V upper) {
+		return new Between<>(attribute, lower, upper);
+	}
+
+	@SafeVarargs
+	public static <T> Query<T> and(Query<T>... queries) {
+		if (queries.length == 0) {
+			throw new IllegalArgumentException("and() needs at least one query");
+		}
+		List<Query<T>> list = new ArrayList<>(queries.length);
+		for (Query<T> query : queries) {
+			list.add(query);
+		}
+		return new And<>(list);
+	}
+
+	// A condition no index can answer; always evaluated by scanning.
+	public static <T> Query<T> where(Predicate<? super T> predicate) {
+		return new Where<>(predicate);
+	}
+
+	static final class Equal<T, V> extends Query<T> {
+
+		final Attribute<T, V> attribute;
+		final V value;
+
+		Equal(Attribute<T, V> attribute, V value) {
+			this.attribute = Objects.requireNonNull(attribute);
+			this.value = value;
+		}
+
+		@Override
+		public boolean test(T t) {
+			return Objects.equals(attribute.get(t), value);
+		}
+
+		@Override
+		public String toString() {
+			return attribute + " = " + value;
+		}
+	}
+
+	static final class Between<T, V extends Comparable<? super V>> extends Query<T> {
+
+		final Attribute<T, V> attribute;
+		final V lower;
+		final V upper;
+
+		Between(Attribute<T, V> attribute, V lower, V upper) {
+			this.attribute = Objects.requireNonNull(attribute);
+			this.lower = Objects.requireNonNull(lower);
+			this.upper = Objects.requireNonNull(upper);
+		}
+
+		@Override
+		public boolean test(T t) {
+			V value = attribute.get(t);
+			return value != null && lower.compareTo(value) <= 0 && value.compareTo(upper) <= 0;
+		}
+
+		@Override
+		public String toString() {
+			return lower + " <= " + attribute + " <= " + upper;
+		}
+	}
+
+	static final class And<T> extends Query<T> {
+
+		final List<Query<T>> queries;
+
+		And(List<Query<T>> queries) {
+			List<Query<T>> flat = new ArrayList<>();
+			for (Query<T> query : queries) {
+				if (query instanceof And) {
+					flat.addAll(((And<T>) query).queries);
+				} else {
+					flat.add(Objects.requireNonNull(query));
+				}
+			}
+			this.queries = Collections.unmodifiableList(flat);
+		}
+
+		@Override
+		public boolean test(T t) {
+			for (Query<T> query : queries) {
+				if (!query.test(t)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder text = new StringBuilder();
+			for (Query<T> query : queries) {
+				text.append(text.length() == 0 ? "" : " and ").append(query);
+			}
+			return text.toString();
+		}
+	}
+
+	static final class Where<T> extends Query<T> {
+
+		private final Predicate<? super T> predicate;
+
+		Where(Predicate<? super T> predicate) {
+			this.predicate = Objects.requireNonNull(predicate);
+		}
+
+		@Override
+		public boolean test(T t) {
+			return predicate.test(t);
+		}
+
+		@Override
+		public String toString() {
+			return "where(...)";
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package java8app.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import java8app.model.Item;
+
+// Memory-mapped file of Item records: name (2 + nameWidth bytes), qty int, price double.
+//
+//     try (ItemFile file = ItemFile.open(path)) {
+//         Map<String, Long> counts = file.stream().parallel()
+//                 .collect(Collectors.groupingBy(ItemFile.View::getName, Collectors.counting()));
+//     }
+//
+// stream() hands out flyweight views that are repositioned for every record, so only the
+// fields a query reads are decoded. A view must not be kept past the action it was passed
+// to; call toItem() to keep a record.
+public final class ItemFile extends MappedRecordFile {
+
+	static final int MAGIC = 0x4A384954;
+
+	private ItemFile(Path path) throws IOException {
+		super(path, MAGIC);
+	}
+
+	public static ItemFile open(Path path) throws IOException {
+		return new ItemFile(path);
+	}
+
+	public static Writer writer(Path path, int nameWidth) throws IOException {
+		return new Writer(path, nameWidth);
+	}
+
+	// Writes all items and returns the number of records.
+	public static long write(Path path, int nameWidth, Iterable<? extends Item> items) throws IOException {
+		try (Writer writer = writer(path, nameWidth)) {
+			for (Item item : items) {
+				writer.write(item);
+			}
+			return writer.count();
+		}
+	}
+
+	static int recordSize(int nameWidth) {
+		return 2 + nameWidth + 4 + 8;
+	}
+
+	public View view(long index) {
+		return new View().moveTo(index);
+	}
+
+	public Spliterator<View> spliterator() {
+		return new RecordSpliterator<>(View::new, 0, count);
+	}
+
+	public Stream<View> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	public final class View extends RecordView {
+
+		private View() {
+		}
+
+		@Override
+		MappedRecordFile file() {
+			return ItemFile.this;
+		}
+
+		public String getName() {
+			return readString(buffer, offset);
+		}
+
+		// Zero-copy comparison; pass the name's UTF-8 bytes, e.g. from nameBytes().
+		public boolean nameEquals(byte[] utf8) {
+			return stringEquals(buffer, offset, utf8);
+		}
+
+		public int getQty() {
+			return buffer.getInt(offset + stringBytes());
+		}
+
+		public double getPrice() {
+			return buffer.getDouble(offset + stringBytes() + 4);
+		}
+
+		public Item toItem() {
+			return new Item(getName(), getQty(), getPrice());
+		}
+	}
+
+	public static byte[] nameBytes(String name) {
+		return name.getBytes(StandardCharsets.UTF_8);
+	}
+
+	public static final class Writer extends RecordFileWriter {
+
+		private Writer(Path path, int nameWidth) throws IOException {
+			super(path, MAGIC, recordSize(nameWidth), nameWidth);
+		}
+
+		public void write(Item item) throws IOException {
+			write(item.getName(), item.getQty(), item.getPrice());
+		}
+
+		public void write(String name, int qty, double price) throws IOException {
+			byte[] encodedName = encode(name);
+			beginRecord();
+			putString(encodedName);
+			putInt(qty);
+			putDouble(price);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package java8app.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Streaming terminal for line pipelines: instead of collect(toList()), pass the sink to
+// forEach and the lines go straight to a file, so the result never has to fit in memory.
+// Each thread appends to its own buffer and writes it out in one call once it is full, so
+// parallel streams only contend on the file write itself. Lines written from a parallel
+// stream end up in chunk order, not encounter order; use a sequential stream (or
+// forEachOrdered) when order matters.
+//
+//     try (Stream<String> lines = MappedLines.lines(in); LineSink sink = LineSink.create(out)) {
+//         lines.parallel().filter(line -> !"mkyong".equals(line)).forEach(sink);
+//     }
+public final class LineSink implements Consumer<String>, Closeable {
+
+	private static final int BUFFER_BYTES = 1 << 16;
+
+	private final FileChannel channel;
+	private final List<Buffer> buffers = new CopyOnWriteArrayList<>();
+	private final ThreadLocal<Buffer> buffer = ThreadLocal.withInitial(() -> {
+		Buffer created = new Buffer();
+		buffers.add(created);
+		return created;
+	});
+
+	private LineSink(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	public static LineSink create(Path path) throws IOException {
+		return new LineSink(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING));
+	}
+
+	@Override
+	public void accept(String line) {
+		Buffer local = buffer.get();
+		local.text.append(line).append('\n');
+		local.lines++;
+		if (local.text.length() >= BUFFER_BYTES) {
+			flush(local.text);
+		}
+	}
+
+	// Lines accepted by all threads; exact once the stream has finished.
+	public long lineCount() {
+		long lines = 0;
+		for (Buffer local : buffers) {
+			lines += local.lines;
+		}
+		return lines;
+	}
+
+	private void flush(StringBuilder local) {
+		if (local.length() == 0) {
+			return;
+		}
+		ByteBuffer bytes = ByteBuffer.wrap(local.toString().getBytes(StandardCharsets.UTF_8));
+		local.setLength(0);
+		try {
+			synchronized (channel) {
+				while (bytes.hasRemaining()) {
+					channel.write(bytes);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Writes out what every thread still has buffered; the stream must have finished.
+	@Override
+	public void close() throws IOException {
+		try {
+			for (Buffer local : buffers) {
+				flush(local.text);
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			channel.close();
+		}
+	}
+
+	// One thread's pending text and the number of lines it has accepted.
+	private static final class Buffer {
+
+		final StringBuilder text = new StringBuilder(BUFFER_BYTES);
+		long lines;
+	}
+}
@@ -0,0 +1,133 @@
+package java8app.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Lines of a UTF-8 text file as a stream that splits well under .parallel(). Files.lines()
+// reads through a BufferedReader and can only split off growing batches of already-decoded
+// lines; here the file is memory mapped and a split cuts the byte range in half, then moves
+// the cut forward to just after the next '\n'. Every spliterator therefore owns whole lines,
+// and a line is only decoded into a String when the pipeline asks for it.
+//
+// Lines end at "\n" or "\r\n", as in BufferedReader.readLine(). Close the stream (e.g. with
+// try-with-resources) to close the file.
+public final class MappedLines {
+
+	// Mapping granularity; a file is mapped as consecutive segments of this many bytes.
+	static final int SEGMENT_SHIFT = 30;
+	static final long SEGMENT_BYTES = 1L << SEGMENT_SHIFT;
+
+	private MappedLines() {
+	}
+
+	public static Stream<String> lines(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_BYTES - 1) >> SEGMENT_SHIFT)];
+			for (int s = 0; s < segments.length; s++) {
+				long from = (long) s << SEGMENT_SHIFT;
+				segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(SEGMENT_BYTES, size - from));
+			}
+			return StreamSupport.stream(new LineSpliterator(segments, 0, size), false)
+					.onClose(() -> {
+						try {
+							channel.close();
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					});
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	static final class LineSpliterator implements Spliterator<String> {
+
+		// Below this many bytes a split costs more than it saves.
+		private static final long MIN_SPLIT_BYTES = 1 << 14;
+
+		private final MappedByteBuffer[] segments;
+		private long position;
+		private final long end;
+
+		LineSpliterator(MappedByteBuffer[] segments, long from, long to) {
+			this.segments = segments;
+			this.position = from;
+			this.end = to;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super String> action) {
+			if (position >= end) {
+				return false;
+			}
+			long newline = indexOfNewline(position, end);
+			long lineEnd = newline < 0 ? end : newline;
+			String line = decode(position, lineEnd);
+			position = newline < 0 ? end : newline + 1;
+			action.accept(line);
+			return true;
+		}
+
+		@Override
+		public Spliterator<String> trySplit() {
+			long remaining = end - position;
+			if (remaining < MIN_SPLIT_BYTES) {
+				return null;
+			}
+			long newline = indexOfNewline(position + remaining / 2, end);
+			if (newline < 0 || newline + 1 >= end) {
+				return null;
+			}
+			LineSpliterator prefix = new LineSpliterator(segments, position, newline + 1);
+			position = newline + 1;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			// bytes, not lines; only used to weigh splits against each other
+			return end - position;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | NONNULL | IMMUTABLE;
+		}
+
+		private byte byteAt(long index) {
+			return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & (SEGMENT_BYTES - 1)));
+		}
+
+		private long indexOfNewline(long from, long to) {
+			for (long i = from; i < to; i++) {
+				if (byteAt(i) == '\n') {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private String decode(long from, long to) {
+			if (to > from && byteAt(to - 1) == '\r') {
+				to--;
+			}
+			byte[] bytes = new byte[(int) (to - from)];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = byteAt(from + i);
+			}
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+}
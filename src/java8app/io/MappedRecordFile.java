@@ -0,0 +1,202 @@
+package java8app.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Read side of the fixed-width record format shared by ItemFile and PersonFile:
+//
+//     header (32 bytes): magic int, version int, record size int, string width int, record count long, 8 reserved
+//     records: record count x record size bytes
+//
+// String fields take 2 + stringWidth bytes: the UTF-8 length as an unsigned short, then the
+// bytes, zero padded. The file is mapped in segments of whole records (a single mapping is
+// limited to 2 GB), so record i never straddles two buffers. Fields are read with absolute
+// gets, which lets any number of threads share the mapping.
+abstract class MappedRecordFile implements Closeable {
+
+	static final int HEADER_BYTES = 32;
+	static final int VERSION = 1;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer[] segments;
+	private final int recordsPerSegment;
+	final long count;
+	final int recordSize;
+	final int stringWidth;
+
+	MappedRecordFile(Path path, int magic) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+				// read the whole header
+			}
+			header.flip();
+			if (header.remaining() < HEADER_BYTES || header.getInt(0) != magic) {
+				throw new IOException(path + " is not a " + getClass().getSimpleName() + " file");
+			}
+			if (header.getInt(4) != VERSION) {
+				throw new IOException("Unsupported version " + header.getInt(4) + " in " + path);
+			}
+			recordSize = header.getInt(8);
+			stringWidth = header.getInt(12);
+			count = header.getLong(16);
+			if (channel.size() < HEADER_BYTES + count * recordSize) {
+				throw new IOException(path + " is truncated: expected " + count + " records");
+			}
+			recordsPerSegment = Integer.MAX_VALUE / recordSize;
+			int segmentCount = (int) ((count + recordsPerSegment - 1) / recordsPerSegment);
+			segments = new MappedByteBuffer[segmentCount];
+			for (int s = 0; s < segmentCount; s++) {
+				long first = (long) s * recordsPerSegment;
+				long records = Math.min(recordsPerSegment, count - first);
+				segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * recordSize,
+						records * recordSize);
+			}
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public long size() {
+		return count;
+	}
+
+	// Closes the channel. The mapping itself is released when the buffers are garbage collected,
+	// so views must not be used after close.
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	final ByteBuffer segment(long index) {
+		if (index < 0 || index >= count) {
+			throw new IndexOutOfBoundsException("Record " + index + " of " + count);
+		}
+		return segments[(int) (index / recordsPerSegment)];
+	}
+
+	final int offset(long index) {
+		return (int) (index % recordsPerSegment) * recordSize;
+	}
+
+	final int stringBytes() {
+		return 2 + stringWidth;
+	}
+
+	static String readString(ByteBuffer buffer, int position) {
+		int length = buffer.getShort(position) & 0xFFFF;
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = buffer.get(position + 2 + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	// Compares a stored string with UTF-8 bytes without decoding it.
+	static boolean stringEquals(ByteBuffer buffer, int position, byte[] utf8) {
+		if ((buffer.getShort(position) & 0xFFFF) != utf8.length) {
+			return false;
+		}
+		for (int i = 0; i < utf8.length; i++) {
+			if (buffer.get(position + 2 + i) != utf8[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Spliterator over record indexes [from, to) that hands out one reusable view per
+	// spliterator. Splits halve the index range, so they always fall on record boundaries.
+	static final class RecordSpliterator<V extends RecordView> implements Spliterator<V> {
+
+		private final Supplier<V> views;
+		private long index;
+		private final long end;
+		private V view;
+
+		RecordSpliterator(Supplier<V> views, long from, long to) {
+			this.views = views;
+			this.index = from;
+			this.end = to;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super V> action) {
+			if (index >= end) {
+				return false;
+			}
+			action.accept(view().moveTo(index++));
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super V> action) {
+			V v = view();
+			for (long i = index; i < end; i++) {
+				action.accept(v.moveTo(i));
+			}
+			index = end;
+		}
+
+		@Override
+		public Spliterator<V> trySplit() {
+			long mid = (index + end) >>> 1;
+			if (mid <= index) {
+				return null;
+			}
+			RecordSpliterator<V> prefix = new RecordSpliterator<>(views, index, mid);
+			index = mid;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return end - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+		}
+
+		private V view() {
+			if (view == null) {
+				view = views.get();
+			}
+			return view;
+		}
+	}
+
+	// Flyweight cursor over one record at a time.
+	abstract static class RecordView {
+
+		ByteBuffer buffer;
+		int offset;
+		long index;
+
+		abstract MappedRecordFile file();
+
+		@SuppressWarnings("unchecked")
+		<V extends RecordView> V moveTo(long index) {
+			this.index = index;
+			this.buffer = file().segment(index);
+			this.offset = file().offset(index);
+			return (V) this;
+		}
+
+		public long index() {
+			return index;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package java8app.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import java8app.model.Person;
+
+// Memory-mapped file of Person records: name, state and city (2 + stringWidth bytes each)
+// followed by age int. Views work as in ItemFile: they are flyweights, so use toPerson() to keep
+// a record beyond the action it was passed to.
+public final class PersonFile extends MappedRecordFile {
+
+	static final int MAGIC = 0x4A385053;
+
+	private PersonFile(Path path) throws IOException {
+		super(path, MAGIC);
+	}
+
+	public static PersonFile open(Path path) throws IOException {
+		return new PersonFile(path);
+	}
+
+	public static Writer writer(Path path, int stringWidth) throws IOException {
+		return new Writer(path, stringWidth);
+	}
+
+	public static long write(Path path, int stringWidth, Iterable<? extends Person> persons) throws IOException {
+		try (Writer writer = writer(path, stringWidth)) {
+			for (Person person : persons) {
+				writer.write(person);
+			}
+			return writer.count();
+		}
+	}
+
+	static int recordSize(int stringWidth) {
+		return 3 * (2 + stringWidth) + 4;
+	}
+
+	public View view(long index) {
+		return new View().moveTo(index);
+	}
+
+	public Spliterator<View> spliterator() {
+		return new RecordSpliterator<>(View::new, 0, count);
+	}
+
+	public Stream<View> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	public final class View extends RecordView {
+
+		private View() {
+		}
+
+		@Override
+		MappedRecordFile file() {
+			return PersonFile.this;
+		}
+
+		public String getName() {
+			return readString(buffer, offset);
+		}
+
+		public String getState() {
+			return readString(buffer, offset + stringBytes());
+		}
+
+		public String getCity() {
+			return readString(buffer, offset + 2 * stringBytes());
+		}
+
+		public boolean nameEquals(byte[] utf8) {
+			return stringEquals(buffer, offset, utf8);
+		}
+
+		public boolean stateEquals(byte[] utf8) {
+			return stringEquals(buffer, offset + stringBytes(), utf8);
+		}
+
+		public boolean cityEquals(byte[] utf8) {
+			return stringEquals(buffer, offset + 2 * stringBytes(), utf8);
+		}
+
+		public int getAge() {
+			return buffer.getInt(offset + 3 * stringBytes());
+		}
+
+		public Person toPerson() {
+			return new Person(getName(), getAge(), getState(), getCity());
+		}
+	}
+
+	public static final class Writer extends RecordFileWriter {
+
+		private Writer(Path path, int stringWidth) throws IOException {
+			super(path, MAGIC, recordSize(stringWidth), stringWidth);
+		}
+
+		public void write(Person person) throws IOException {
+			write(person.getName(), person.getAge(), person.getState(), person.getCity());
+		}
+
+		public void write(String name, int age, String state, String city) throws IOException {
+			byte[] encodedName = encode(name);
+			byte[] encodedState = encode(state);
+			byte[] encodedCity = encode(city);
+			beginRecord();
+			putString(encodedName);
+			putString(encodedState);
+			putString(encodedCity);
+			putInt(age);
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package java8app.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Binary form of a record for spill files and other sequential streams. Unlike ItemFile and
+// PersonFile records, encodings may vary in length; read() must consume exactly what write()
+// produced.
+public interface RecordCodec<T> {
+
+	void write(DataOutput out, T t) throws IOException;
+
+	T read(DataInput in) throws IOException;
+}
@@ -0,0 +1,121 @@
+package java8app.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Set;
+
+import java8app.model.Hosting;
+import java8app.model.Item;
+import java8app.model.Person;
+import java8app.model.Student;
+
+// Codecs for the model classes. Strings are written with writeUTF behind a null flag, so they
+// are limited to 65535 encoded bytes.
+public final class RecordCodecs {
+
+	public static final RecordCodec<String> STRING = new RecordCodec<String>() {
+
+		@Override
+		public void write(DataOutput out, String s) throws IOException {
+			writeString(out, s);
+		}
+
+		@Override
+		public String read(DataInput in) throws IOException {
+			return readString(in);
+		}
+	};
+
+	public static final RecordCodec<Item> ITEM = new RecordCodec<Item>() {
+
+		@Override
+		public void write(DataOutput out, Item item) throws IOException {
+			writeString(out, item.getName());
+			out.writeInt(item.getQty());
+			out.writeDouble(item.getPrice());
+		}
+
+		@Override
+		public Item read(DataInput in) throws IOException {
+			return new Item(readString(in), in.readInt(), in.readDouble());
+		}
+	};
+
+	public static final RecordCodec<Person> PERSON = new RecordCodec<Person>() {
+
+		@Override
+		public void write(DataOutput out, Person person) throws IOException {
+			writeString(out, person.getName());
+			out.writeInt(person.getAge());
+			writeString(out, person.getState());
+			writeString(out, person.getCity());
+		}
+
+		@Override
+		public Person read(DataInput in) throws IOException {
+			return new Person(readString(in), in.readInt(), readString(in), readString(in));
+		}
+	};
+
+	public static final RecordCodec<Hosting> HOSTING = new RecordCodec<Hosting>() {
+
+		@Override
+		public void write(DataOutput out, Hosting hosting) throws IOException {
+			out.writeInt(hosting.getId());
+			writeString(out, hosting.getName());
+			Date created = hosting.getCreatedDate();
+			out.writeBoolean(created != null);
+			if (created != null) {
+				out.writeLong(created.getTime());
+			}
+		}
+
+		@Override
+		public Hosting read(DataInput in) throws IOException {
+			int id = in.readInt();
+			String name = readString(in);
+			return new Hosting(id, name, in.readBoolean() ? new Date(in.readLong()) : null);
+		}
+	};
+
+	public static final RecordCodec<Student> STUDENT = new RecordCodec<Student>() {
+
+		@Override
+		public void write(DataOutput out, Student student) throws IOException {
+			writeString(out, student.getName());
+			Set<String> books = student.getBook();
+			// -1 for a student without a book set, which addBook() creates on first use
+			out.writeInt(books == null ? -1 : books.size());
+			if (books != null) {
+				for (String book : books) {
+					writeString(out, book);
+				}
+			}
+		}
+
+		@Override
+		public Student read(DataInput in) throws IOException {
+			Student student = new Student(readString(in));
+			for (int books = in.readInt(); books > 0; books--) {
+				student.addBook(readString(in));
+			}
+			return student;
+		}
+	};
+
+	private RecordCodecs() {
+	}
+
+	static void writeString(DataOutput out, String s) throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null) {
+			out.writeUTF(s);
+		}
+	}
+
+	static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
@@ -0,0 +1,91 @@
+package java8app.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Write side of the MappedRecordFile format. Records are encoded into a buffer and written
+// sequentially; close() fills in the record count in the header.
+abstract class RecordFileWriter implements Closeable {
+
+	private static final int BUFFER_BYTES = 1 << 16;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final int recordSize;
+	private final int stringWidth;
+	private long count;
+
+	RecordFileWriter(Path path, int magic, int recordSize, int stringWidth) throws IOException {
+		if (stringWidth < 1 || stringWidth > 0xFFFF) {
+			throw new IllegalArgumentException("stringWidth must be in 1..65535: " + stringWidth);
+		}
+		this.recordSize = recordSize;
+		this.stringWidth = stringWidth;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		this.buffer = ByteBuffer.allocate(Math.max(BUFFER_BYTES, recordSize));
+		buffer.putInt(magic).putInt(MappedRecordFile.VERSION).putInt(recordSize).putInt(stringWidth)
+			.putLong(0L).putLong(0L);
+	}
+
+	public long count() {
+		return count;
+	}
+
+	// Makes room for one record; the put methods then fill its fields in layout order.
+	final void beginRecord() throws IOException {
+		if (buffer.remaining() < recordSize) {
+			flush();
+		}
+		count++;
+	}
+
+	final void putInt(int value) {
+		buffer.putInt(value);
+	}
+
+	final void putDouble(double value) {
+		buffer.putDouble(value);
+	}
+
+	// Encodes and checks a string field before beginRecord(), so a bad value leaves no partial record.
+	final byte[] encode(String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > stringWidth) {
+			throw new IllegalArgumentException("\"" + value + "\" is longer than " + stringWidth + " UTF-8 bytes");
+		}
+		return bytes;
+	}
+
+	final void putString(byte[] bytes) {
+		buffer.putShort((short) bytes.length);
+		buffer.put(bytes);
+		for (int i = bytes.length; i < stringWidth; i++) {
+			buffer.put((byte) 0);
+		}
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+			ByteBuffer countField = ByteBuffer.allocate(8).putLong(0, count);
+			channel.write(countField, 16);
+		} finally {
+			channel.close();
+		}
+	}
+}
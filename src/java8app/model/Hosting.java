@@ -0,0 +1,34 @@
+package java8app.model;
+
+import java.util.Date;
+
+// Hosting record as used in convertListToMap().
+public class Hosting {
+
+	private final int id;
+	private final String name;
+	private final Date createdDate;
+
+	public Hosting(int id, String name, Date createdDate) {
+		this.id = id;
+		this.name = name;
+		this.createdDate = createdDate;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Date getCreatedDate() {
+		return createdDate;
+	}
+
+	@Override
+	public String toString() {
+		return "Hosting[" + id + ", " + name + "]";
+	}
+}
@@ -0,0 +1,32 @@
+package java8app.model;
+
+// Item record as used in groupCountMappingOnStreams().
+public class Item {
+
+	private final String name;
+	private final int qty;
+	private final double price;
+
+	public Item(String name, int qty, double price) {
+		this.name = name;
+		this.qty = qty;
+		this.price = price;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getQty() {
+		return qty;
+	}
+
+	public double getPrice() {
+		return price;
+	}
+
+	@Override
+	public String toString() {
+		return "Item[" + name + ", " + qty + ", " + price + "]";
+	}
+}
@@ -0,0 +1,39 @@
+package java8app.model;
+
+// Person record shared by the benchmarks and tools; it unions the fields used by the
+// Person classes in groupingByOnStreams() (name, state, city) and filteringAStream() (name, age).
+public class Person {
+
+	private final String name;
+	private final int age;
+	private final String state;
+	private final String city;
+
+	public Person(String name, int age, String state, String city) {
+		this.name = name;
+		this.age = age;
+		this.state = state;
+		this.city = city;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getAge() {
+		return age;
+	}
+
+	public String getState() {
+		return state;
+	}
+
+	public String getCity() {
+		return city;
+	}
+
+	@Override
+	public String toString() {
+		return "Person[" + name + ", " + age + ", " + state + ", " + city + "]";
+	}
+}
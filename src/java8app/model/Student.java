@@ -0,0 +1,35 @@
+package java8app.model;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Student record as used in flatMap().
+public class Student {
+
+	private String name;
+	private Set<String> book;
+
+	public Student(String name) {
+		this.name = name;
+	}
+
+	public void addBook(String book) {
+		if (this.book == null) {
+			this.book = new HashSet<>();
+		}
+		this.book.add(book);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Set<String> getBook() {
+		return book;
+	}
+
+	@Override
+	public String toString() {
+		return "Student[" + name + ", " + book + "]";
+	}
+}
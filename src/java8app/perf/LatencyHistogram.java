@@ -0,0 +1,119 @@
+package java8app.perf;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Log-linear histogram of non-negative longs (nanoseconds here), in the manner of HdrHistogram:
+// values below 64 have a bucket each, larger values fall into 32 buckets per power of two, so
+// a reported value is within about 3% of the recorded one. 1888 buckets cover all non-negative
+// longs. Recording is a few atomic increments and never locks; readers may run concurrently
+// with writers and see a slightly stale picture.
+public final class LatencyHistogram {
+
+	private static final int SUB_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = (64 - SUB_BITS - 1 + 1) << SUB_BITS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts.incrementAndGet(index(value));
+		count.incrementAndGet();
+		total.addAndGet(value);
+		long current;
+		while (value < (current = min.get()) && !min.compareAndSet(current, value)) {
+			// retry
+		}
+		while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+			// retry
+		}
+	}
+
+	// Adds the recordings of other to this histogram.
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			long c = other.counts.get(i);
+			if (c != 0) {
+				counts.addAndGet(i, c);
+			}
+		}
+		count.addAndGet(other.count.get());
+		total.addAndGet(other.total.get());
+		long current;
+		long otherMin = other.min.get();
+		while (otherMin < (current = min.get()) && !min.compareAndSet(current, otherMin)) {
+			// retry
+		}
+		long otherMax = other.max.get();
+		while (otherMax > (current = max.get()) && !max.compareAndSet(current, otherMax)) {
+			// retry
+		}
+	}
+
+	public long count() {
+		return count.get();
+	}
+
+	public long min() {
+		return count() == 0 ? 0 : min.get();
+	}
+
+	public long max() {
+		return count() == 0 ? 0 : max.get();
+	}
+
+	public double mean() {
+		long n = count();
+		return n == 0 ? 0.0 : (double) total.get() / n;
+	}
+
+	// Highest value equivalent to the recording at the given percentile (0..100), capped at max().
+	public long percentile(double percentile) {
+		long n = count();
+		if (n == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * n));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestEquivalent(i), max());
+			}
+		}
+		return max();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d min=%d p50=%d p90=%d p99=%d p99.9=%d max=%d mean=%.1f",
+				count(), min(), percentile(50), percentile(90), percentile(99), percentile(99.9), max(), mean());
+	}
+
+	public String toJson() {
+		return String.format("{\"count\":%d,\"min\":%d,\"p50\":%d,\"p90\":%d,\"p99\":%d,\"p99.9\":%d,\"max\":%d,\"mean\":%.1f}",
+				count(), min(), percentile(50), percentile(90), percentile(99), percentile(99.9), max(), mean());
+	}
+
+	static int index(long value) {
+		int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BITS - 1);
+		return (shift << SUB_BITS) + (int) (value >>> shift);
+	}
+
+	static long highestEquivalent(int index) {
+		if (index < 2 * SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index >>> SUB_BITS) - 1;
+		long mantissa = index - ((long) shift << SUB_BITS);
+		long highest = ((mantissa + 1) << shift) - 1;
+		return highest < 0 ? Long.MAX_VALUE : highest;
+	}
+}
@@ -0,0 +1,94 @@
+package java8app.perf;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.LongStream;
+
+// The sum of 1..n from performanceBenchMarking(), written three ways so the scaling study can
+// compare them. Every kernel has a sequential and a parallel form; the parallel form forks into
+// whatever ForkJoinPool it is invoked from.
+public enum RangeSumKernels {
+
+	LONG_STREAM("LongStream") {
+		@Override
+		public long sequential(long n) {
+			return LongStream.rangeClosed(1, n).sum();
+		}
+
+		@Override
+		public long parallel(long n) {
+			return LongStream.rangeClosed(1, n).parallel().sum();
+		}
+	},
+
+	BOXED_STREAM("Stream<Long>") {
+		@Override
+		public long sequential(long n) {
+			return LongStream.rangeClosed(1, n).boxed().reduce(0L, Long::sum);
+		}
+
+		@Override
+		public long parallel(long n) {
+			return LongStream.rangeClosed(1, n).boxed().parallel().reduce(0L, Long::sum);
+		}
+	},
+
+	RECURSIVE_TASK("RecursiveTask") {
+		@Override
+		public long sequential(long n) {
+			return RangeSumTask.loop(1, n);
+		}
+
+		@Override
+		public long parallel(long n) {
+			return new RangeSumTask(1, n).invoke();
+		}
+	};
+
+	private final String label;
+
+	RangeSumKernels(String label) {
+		this.label = label;
+	}
+
+	public String label() {
+		return label;
+	}
+
+	public abstract long sequential(long n);
+
+	public abstract long parallel(long n);
+
+	// Hand-split range sum: halves the range until it is below THRESHOLD, then loops.
+	static final class RangeSumTask extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+		static final long THRESHOLD = 1 << 16;
+
+		private final long from, to;
+
+		RangeSumTask(long from, long to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Long compute() {
+			if (to - from < THRESHOLD) {
+				return loop(from, to);
+			}
+			long mid = (from + to) >>> 1;
+			RangeSumTask left = new RangeSumTask(from, mid);
+			left.fork();
+			long right = new RangeSumTask(mid + 1, to).compute();
+			return right + left.join();
+		}
+
+		static long loop(long from, long to) {
+			long sum = 0;
+			for (long i = from; i <= to; i++) {
+				sum += i;
+			}
+			return sum;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package java8app.perf;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+// Thread-count scaling study for the range sum in performanceBenchMarking(). Each kernel runs
+// sequentially and then in parallel inside a dedicated ForkJoinPool of 1..maxWorkers workers,
+// instead of the common pool. The table reports the best time per op, the speedup and
+// efficiency against the kernel's own sequential time, and the bytes allocated per op by
+// the caller plus all pool workers.
+public class RangeSumScaling {
+
+	private final long n;
+	private final int maxWorkers;
+	private final int warmups;
+	private final int iterations;
+
+	public RangeSumScaling(long n, int maxWorkers, int warmups, int iterations) {
+		if (n < 1 || maxWorkers < 1 || warmups < 0 || iterations < 1) {
+			throw new IllegalArgumentException("n, maxWorkers and iterations must be positive");
+		}
+		this.n = n;
+		this.maxWorkers = maxWorkers;
+		this.warmups = warmups;
+		this.iterations = iterations;
+	}
+
+	public void run() {
+		System.out.println("Range sum scaling study, n = " + n + ", workers 1.." + maxWorkers
+				+ ", best of " + iterations + " after " + warmups + " warm-up runs");
+		System.out.println(String.format("%-14s %8s %12s %9s %11s %14s",
+				"kernel", "workers", "ms/op", "speedup", "efficiency", "bytes/op"));
+		for (RangeSumKernels kernel : RangeSumKernels.values()) {
+			Sample sequential = measure(kernel, null);
+			print(kernel, "seq", sequential, sequential, 1);
+			for (int workers = 1; workers <= maxWorkers; workers++) {
+				print(kernel, String.valueOf(workers), measure(kernel, workers), sequential, workers);
+			}
+		}
+	}
+
+	private void print(RangeSumKernels kernel, String workers, Sample sample, Sample baseline, int threads) {
+		double speedup = (double) baseline.nanos / sample.nanos;
+		System.out.println(String.format("%-14s %8s %12.3f %9.2f %10.0f%% %14s",
+				kernel.label(), workers, sample.nanos / 1e6, speedup, 100 * speedup / threads,
+				sample.bytes < 0 ? "n/a" : String.valueOf(sample.bytes)));
+	}
+
+	// A null worker count runs the sequential kernel on the calling thread.
+	private Sample measure(RangeSumKernels kernel, Integer workers) {
+		List<Thread> threads = new CopyOnWriteArrayList<>();
+		ForkJoinPool pool = workers == null ? null : new ForkJoinPool(workers, p -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+			threads.add(thread);
+			return thread;
+		}, null, false);
+		try {
+			long expected = n * (n + 1) / 2;
+			for (int i = 0; i < warmups; i++) {
+				check(invoke(kernel, pool), expected);
+			}
+			long best = Long.MAX_VALUE;
+			long bytes = 0;
+			for (int i = 0; i < iterations; i++) {
+				long callerBefore = ThreadAllocations.current();
+				long workersBefore = ThreadAllocations.sum(threads);
+				long start = System.nanoTime();
+				long sum = invoke(kernel, pool);
+				long elapsed = System.nanoTime() - start;
+				// workers spawned during this iteration started from zero
+				bytes += ThreadAllocations.current() - callerBefore + ThreadAllocations.sum(threads) - workersBefore;
+				check(sum, expected);
+				best = Math.min(best, elapsed);
+			}
+			return new Sample(best, ThreadAllocations.isSupported() ? bytes / iterations : -1);
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+		}
+	}
+
+	private long invoke(RangeSumKernels kernel, ForkJoinPool pool) {
+		return pool == null ? kernel.sequential(n) : pool.submit(() -> kernel.parallel(n)).join();
+	}
+
+	private static void check(long sum, long expected) {
+		if (sum != expected) {
+			throw new IllegalStateException("Wrong range sum " + sum + ", expected " + expected);
+		}
+	}
+
+	private static final class Sample {
+		final long nanos;
+		final long bytes;
+
+		Sample(long nanos, long bytes) {
+			this.nanos = nanos;
+			this.bytes = bytes;
+		}
+	}
+
+	// Arguments: [n] [maxWorkers] [warmups] [iterations]
+	public static void main(String[] args) {
+		long n = args.length > 0 ? Long.parseLong(args[0]) : 100000000L;
+		int maxWorkers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int warmups = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+		new RangeSumScaling(n, maxWorkers, warmups, iterations).run();
+	}
+}
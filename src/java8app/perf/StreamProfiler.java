@@ -0,0 +1,376 @@
+package java8app.perf;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+// Opt-in per-stage measurements for stream pipelines. The functions handed to a pipeline are
+// wrapped under a stage name:
+//
+//     StreamProfiler profiler = StreamProfiler.fromSystemProperty();   // -Djava8app.profile=timing
+//     profiler.probe("distinct", list.stream()
+//             .map(profiler.map("getBook", x -> x.getBook()))
+//             .flatMap(profiler.flatMap("books", x -> x.stream()))
+//             .distinct())
+//             .collect(profiler.collector("toList", Collectors.toList()));
+//     System.out.println(profiler.report());
+//
+// Each stage counts elements in and out, records the time of every call in a LatencyHistogram
+// and, in ALLOCATIONS mode, the bytes the calling thread allocated during the call, and keeps
+// all of it per thread to show how parallel() spread the work. Threads only write their own
+// counters, so recording never contends; read the report after the pipeline has finished.
+//
+// Stateful operations such as distinct() and sorted() take no function, so a probe wrapped
+// around one counts what came out of it. A flatMap stage times the creation of each inner
+// stream, not its traversal. With Mode.OFF every method returns its argument unchanged, so a
+// pipeline pays nothing for being instrumentable.
+public final class StreamProfiler {
+
+	public enum Mode {
+		OFF,
+		// counts, call times and threads
+		TIMING,
+		// TIMING plus allocated bytes per call, which costs two ThreadMXBean reads per call
+		ALLOCATIONS
+	}
+
+	public static final String PROPERTY = "java8app.profile";
+
+	private final Mode mode;
+	private final Map<String, Stage> stages = new LinkedHashMap<>();
+
+	private StreamProfiler(Mode mode) {
+		this.mode = Objects.requireNonNull(mode);
+	}
+
+	public static StreamProfiler create(Mode mode) {
+		return new StreamProfiler(mode);
+	}
+
+	// Mode from the java8app.profile system property (off, timing, allocations); OFF if unset.
+	public static StreamProfiler fromSystemProperty() {
+		String value = System.getProperty(PROPERTY, "off");
+		return new StreamProfiler(Mode.valueOf(value.trim().toUpperCase(Locale.ROOT)));
+	}
+
+	public boolean isEnabled() {
+		return mode != Mode.OFF;
+	}
+
+	public <T, R> Function<T, R> map(String name, Function<T, R> mapper) {
+		if (!isEnabled()) {
+			return mapper;
+		}
+		Stage stage = stage(name);
+		return t -> {
+			Slot slot = stage.slot();
+			long allocated = slot.allocatedBefore();
+			long start = System.nanoTime();
+			R r = mapper.apply(t);
+			slot.record(start, allocated, 1);
+			return r;
+		};
+	}
+
+	public <T> Predicate<T> filter(String name, Predicate<T> predicate) {
+		if (!isEnabled()) {
+			return predicate;
+		}
+		Stage stage = stage(name);
+		return t -> {
+			Slot slot = stage.slot();
+			long allocated = slot.allocatedBefore();
+			long start = System.nanoTime();
+			boolean pass = predicate.test(t);
+			slot.record(start, allocated, pass ? 1 : 0);
+			return pass;
+		};
+	}
+
+	public <T, R> Function<T, Stream<R>> flatMap(String name, Function<T, Stream<R>> mapper) {
+		if (!isEnabled()) {
+			return mapper;
+		}
+		Stage stage = stage(name);
+		return t -> {
+			Slot slot = stage.slot();
+			long allocated = slot.allocatedBefore();
+			long start = System.nanoTime();
+			Stream<R> inner = mapper.apply(t);
+			slot.record(start, allocated, 0);
+			return inner == null ? null : inner.peek(r -> stage.slot().out++);
+		};
+	}
+
+	// Counts the elements coming out of stream, typically right after a stateful operation.
+	public <T> Stream<T> probe(String name, Stream<T> stream) {
+		if (!isEnabled()) {
+			return stream;
+		}
+		Stage stage = stage(name);
+		return stream.peek(t -> {
+			Slot slot = stage.slot();
+			slot.in++;
+			slot.out++;
+		});
+	}
+
+	// Times accumulator calls per element under name, and combiner and finisher calls as the
+	// stages name.combine and name.finish.
+	public <T, A, R> Collector<T, A, R> collector(String name, Collector<T, A, R> collector) {
+		if (!isEnabled()) {
+			return collector;
+		}
+		Stage stage = stage(name);
+		Stage combine = stage(name + ".combine");
+		Stage finish = stage(name + ".finish");
+		BiConsumer<A, T> accumulator = collector.accumulator();
+		BinaryOperator<A> combiner = collector.combiner();
+		Function<A, R> finisher = collector.finisher();
+		Supplier<A> supplier = collector.supplier();
+		return Collector.of(supplier,
+				(container, t) -> {
+					Slot slot = stage.slot();
+					long allocated = slot.allocatedBefore();
+					long start = System.nanoTime();
+					accumulator.accept(container, t);
+					slot.record(start, allocated, 0);
+				},
+				(left, right) -> {
+					Slot slot = combine.slot();
+					long allocated = slot.allocatedBefore();
+					long start = System.nanoTime();
+					A combined = combiner.apply(left, right);
+					slot.record(start, allocated, 1);
+					return combined;
+				},
+				container -> {
+					Slot slot = finish.slot();
+					long allocated = slot.allocatedBefore();
+					long start = System.nanoTime();
+					R r = finisher.apply(container);
+					slot.record(start, allocated, 1);
+					return r;
+				},
+				collector.characteristics().toArray(new Collector.Characteristics[0]));
+	}
+
+	public synchronized List<StageStats> stages() {
+		List<StageStats> stats = new ArrayList<>(stages.size());
+		for (Stage stage : stages.values()) {
+			stats.add(stage.stats());
+		}
+		return stats;
+	}
+
+	public synchronized void reset() {
+		stages.clear();
+	}
+
+	// One block per stage in registration order: counts, time, allocations, latency histogram
+	// and elements per thread.
+	public String report() {
+		StringBuilder report = new StringBuilder();
+		for (StageStats stage : stages()) {
+			if (stage.calls() == 0 && stage.elementsOut() == 0) {
+				continue;
+			}
+			report.append(String.format("%-24s in=%d out=%d time=%.3fms", stage.name(), stage.elementsIn(),
+					stage.elementsOut(), stage.nanos() / 1e6));
+			if (mode == Mode.ALLOCATIONS) {
+				report.append(" allocated=").append(stage.allocatedBytes() < 0 ? "n/a" : stage.allocatedBytes() + "B");
+			}
+			report.append('\n');
+			if (stage.calls() > 0) {
+				report.append("    ns/call ").append(stage.latency()).append('\n');
+			}
+			report.append("    threads ").append(stage.elementsPerThread()).append('\n');
+		}
+		return report.toString();
+	}
+
+	public String toJson() {
+		StringBuilder json = new StringBuilder("{\"mode\":\"").append(mode).append("\",\"stages\":[");
+		boolean first = true;
+		for (StageStats stage : stages()) {
+			json.append(first ? "" : ",");
+			first = false;
+			json.append("{\"name\":").append(quote(stage.name()))
+				.append(",\"in\":").append(stage.elementsIn())
+				.append(",\"out\":").append(stage.elementsOut())
+				.append(",\"nanos\":").append(stage.nanos())
+				.append(",\"allocatedBytes\":").append(stage.allocatedBytes())
+				.append(",\"latency\":").append(stage.latency().toJson())
+				.append(",\"threads\":{");
+			boolean firstThread = true;
+			for (Map.Entry<String, Long> thread : stage.elementsPerThread().entrySet()) {
+				json.append(firstThread ? "" : ",").append(quote(thread.getKey())).append(':').append(thread.getValue());
+				firstThread = false;
+			}
+			json.append("}}");
+		}
+		return json.append("]}").toString();
+	}
+
+	private static String quote(String s) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			} else if (c < 0x20) {
+				quoted.append(String.format("\\u%04x", (int) c));
+			} else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+	private synchronized Stage stage(String name) {
+		return stages.computeIfAbsent(name, n -> new Stage(n, mode == Mode.ALLOCATIONS && ThreadAllocations.isSupported()));
+	}
+
+	// Merged view of a stage's per-thread counters.
+	public static final class StageStats {
+
+		private final String name;
+		private final long in;
+		private final long out;
+		private final long calls;
+		private final long nanos;
+		private final long allocatedBytes;
+		private final LatencyHistogram latency;
+		private final Map<String, Long> elementsPerThread;
+
+		StageStats(String name, long in, long out, long calls, long nanos, long allocatedBytes, LatencyHistogram latency,
+				Map<String, Long> elementsPerThread) {
+			this.name = name;
+			this.in = in;
+			this.out = out;
+			this.calls = calls;
+			this.nanos = nanos;
+			this.allocatedBytes = allocatedBytes;
+			this.latency = latency;
+			this.elementsPerThread = elementsPerThread;
+		}
+
+		public String name() {
+			return name;
+		}
+
+		public long elementsIn() {
+			return in;
+		}
+
+		public long elementsOut() {
+			return out;
+		}
+
+		public long calls() {
+			return calls;
+		}
+
+		public long nanos() {
+			return nanos;
+		}
+
+		// -1 unless the profiler runs in ALLOCATIONS mode on a JVM with allocation counters.
+		public long allocatedBytes() {
+			return allocatedBytes;
+		}
+
+		public LatencyHistogram latency() {
+			return latency;
+		}
+
+		// Elements in per thread name, sorted by name.
+		public Map<String, Long> elementsPerThread() {
+			return elementsPerThread;
+		}
+	}
+
+	private static final class Stage {
+
+		final String name;
+		final boolean allocations;
+		final List<Slot> slots = new CopyOnWriteArrayList<>();
+		final ThreadLocal<Slot> local;
+
+		Stage(String name, boolean allocations) {
+			this.name = name;
+			this.allocations = allocations;
+			this.local = ThreadLocal.withInitial(() -> {
+				Slot slot = new Slot(Thread.currentThread().getName(), allocations);
+				slots.add(slot);
+				return slot;
+			});
+		}
+
+		Slot slot() {
+			return local.get();
+		}
+
+		StageStats stats() {
+			long in = 0;
+			long out = 0;
+			long nanos = 0;
+			long allocated = 0;
+			LatencyHistogram latency = new LatencyHistogram();
+			Map<String, Long> threads = new TreeMap<>();
+			for (Slot slot : slots) {
+				in += slot.in;
+				out += slot.out;
+				nanos += slot.nanos;
+				allocated += slot.allocated;
+				latency.add(slot.latency);
+				threads.merge(slot.thread, slot.in, Long::sum);
+			}
+			return new StageStats(name, in, out, latency.count(), nanos, allocations ? allocated : -1, latency, threads);
+		}
+	}
+
+	// Counters of one stage on one thread, only ever written by that thread.
+	private static final class Slot {
+
+		final String thread;
+		final boolean allocations;
+		final LatencyHistogram latency = new LatencyHistogram();
+		long in;
+		long out;
+		long nanos;
+		long allocated;
+
+		Slot(String thread, boolean allocations) {
+			this.thread = thread;
+			this.allocations = allocations;
+		}
+
+		long allocatedBefore() {
+			return allocations ? ThreadAllocations.current() : 0;
+		}
+
+		void record(long start, long allocatedBefore, int produced) {
+			long elapsed = System.nanoTime() - start;
+			if (allocations) {
+				allocated += ThreadAllocations.current() - allocatedBefore;
+			}
+			in++;
+			out += produced;
+			nanos += elapsed;
+			latency.record(elapsed);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package java8app.perf;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+
+// Per-thread allocated bytes from the HotSpot ThreadMXBean. Returns -1 when the JVM does not
+// expose allocation counters, so callers can print "n/a" instead of a wrong number.
+public final class ThreadAllocations {
+
+	private static final com.sun.management.ThreadMXBean MX_BEAN = lookup();
+
+	private ThreadAllocations() {
+	}
+
+	private static com.sun.management.ThreadMXBean lookup() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+			return null;
+		}
+		com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+		if (!hotspot.isThreadAllocatedMemorySupported()) {
+			return null;
+		}
+		if (!hotspot.isThreadAllocatedMemoryEnabled()) {
+			hotspot.setThreadAllocatedMemoryEnabled(true);
+		}
+		return hotspot;
+	}
+
+	public static boolean isSupported() {
+		return MX_BEAN != null;
+	}
+
+	// Bytes allocated so far by the calling thread.
+	public static long current() {
+		return MX_BEAN == null ? -1 : MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	// Bytes allocated so far by all of the given threads. The collection is read once, through
+	// toArray(), so it may change concurrently. The JVM drops a thread's counter when the thread
+	// ends, so threads that have died contribute nothing, even for what they allocated earlier.
+	public static long sum(Collection<? extends Thread> threads) {
+		if (MX_BEAN == null) {
+			return -1;
+		}
+		Object[] snapshot = threads.toArray();
+		long[] ids = new long[snapshot.length];
+		for (int i = 0; i < snapshot.length; i++) {
+			ids[i] = ((Thread) snapshot[i]).getId();
+		}
+		long total = 0;
+		for (long bytes : MX_BEAN.getThreadAllocatedBytes(ids)) {
+			if (bytes > 0) {
+				total += bytes;
+			}
+		}
+		return total;
+	}
+}
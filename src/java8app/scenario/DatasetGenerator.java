@@ -0,0 +1,222 @@
+package java8app.scenario;
+
+import java.util.Date;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import java8app.model.Hosting;
+import java8app.model.Item;
+import java8app.model.Person;
+import java8app.model.Student;
+import java8app.sketch.Hash64;
+
+// Seeded synthetic datasets of the model classes at any size, generated lazily and in parallel.
+//
+// Rows are produced in chunks of 4096. Every chunk draws from a SplittableRandom seeded from
+// (seed, dataset, chunk index), and streams only split at chunk boundaries, so row i is the
+// same whether the stream runs sequentially, in parallel, or is regenerated later. Grouping
+// keys (cities, names, item names, book titles) are drawn from a Zipf distribution over
+// `keys` distinct values: skew 0 is uniform, 1 is typical of real data, larger is hotter.
+public final class DatasetGenerator {
+
+	static final String[] FRUITS = {"apple", "banana", "orange", "watermelon", "papaya",
+			"mango", "kiwi", "cherry", "grape", "lemon", "lime", "peach", "pear", "plum"};
+	static final String[] STATES = {"Texas", "California", "New York", "Washington", "Florida",
+			"Illinois", "Ohio", "Georgia"};
+	static final String[] NAMES = {"mkyong", "michael", "lawrence", "timothy", "adriana",
+			"lavatno", "andrey", "zilap"};
+	static final double[] PRICES = {9.99, 19.99, 29.99, 39.99};
+
+	private static final int CHUNK = 1 << 12;
+	private static final long EPOCH = 946684800000L; // 2000-01-01
+	private static final long TWENTY_YEARS = 20L * 365 * 24 * 3600 * 1000;
+
+	private final long seed;
+	private final double skew;
+	private final int keys;
+	private final Zipf keyDistribution;
+
+	private DatasetGenerator(Builder builder) {
+		this.seed = builder.seed;
+		this.skew = builder.skew;
+		this.keys = builder.keys;
+		this.keyDistribution = new Zipf(keys, skew);
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public long seed() {
+		return seed;
+	}
+
+	public double skew() {
+		return skew;
+	}
+
+	public int keys() {
+		return keys;
+	}
+
+	// City, state and name keys skewed; age uniform in 0..89.
+	public Stream<Person> persons(long rows) {
+		return generate(rows, 1, (index, random) -> {
+			int city = keyDistribution.sampleIndex(random);
+			String state = STATES[city % STATES.length];
+			int name = keyDistribution.sampleIndex(random);
+			return new Person(NAMES[name % NAMES.length] + name, random.nextInt(90), state, state + " city " + city);
+		});
+	}
+
+	// Item names skewed, the first ones being the fruits of the examples.
+	public Stream<Item> items(long rows) {
+		return generate(rows, 2, (index, random) -> {
+			int name = keyDistribution.sampleIndex(random);
+			String fruit = name < FRUITS.length ? FRUITS[name] : FRUITS[name % FRUITS.length] + " " + name / FRUITS.length;
+			return new Item(fruit, 10 * (1 + random.nextInt(3)), PRICES[random.nextInt(PRICES.length)]);
+		});
+	}
+
+	// Ids are index + 1, unique for the first Integer.MAX_VALUE rows.
+	public Stream<Hosting> hostings(long rows) {
+		return generate(rows, 3, (index, random) ->
+				new Hosting((int) (index + 1), "host" + index + ".com", new Date(EPOCH + random.nextLong(TWENTY_YEARS))));
+	}
+
+	// One to four book titles each, titles skewed.
+	public Stream<Student> students(long rows) {
+		return generate(rows, 4, (index, random) -> {
+			Student student = new Student("student" + index);
+			for (int books = 1 + random.nextInt(4); books > 0; books--) {
+				student.addBook("Book " + keyDistribution.sampleIndex(random));
+			}
+			return student;
+		});
+	}
+
+	private <T> Stream<T> generate(long rows, long dataset, RowFactory<T> factory) {
+		if (rows < 0) {
+			throw new IllegalArgumentException("rows must not be negative");
+		}
+		return StreamSupport.stream(new Rows<>(0, rows, seed, dataset, factory), false);
+	}
+
+	// Murmur3 fmix64 of the combined inputs, so nearby chunks get unrelated seeds.
+	static long chunkSeed(long seed, long dataset, long chunk) {
+		return Hash64.mix(seed ^ (dataset * 0x9E3779B97F4A7C15L) ^ (chunk * 0xC2B2AE3D27D4EB4FL));
+	}
+
+	public static final class Builder {
+
+		private long seed = 42;
+		private double skew = 1.0;
+		private int keys = 10_000;
+
+		private Builder() {
+		}
+
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		// Zipf exponent of the grouping keys; 0 for uniform.
+		public Builder skew(double skew) {
+			if (skew < 0) {
+				throw new IllegalArgumentException("skew must not be negative");
+			}
+			this.skew = skew;
+			return this;
+		}
+
+		// Number of distinct grouping keys.
+		public Builder keys(int keys) {
+			if (keys < 1) {
+				throw new IllegalArgumentException("keys must be positive");
+			}
+			this.keys = keys;
+			return this;
+		}
+
+		public DatasetGenerator build() {
+			return new DatasetGenerator(this);
+		}
+	}
+
+	private interface RowFactory<T> {
+
+		T row(long index, SplittableRandom random);
+	}
+
+	// Rows [index, end), starting on a chunk boundary.
+	private static final class Rows<T> implements Spliterator<T> {
+
+		private long index;
+		private final long end;
+		private final long seed;
+		private final long dataset;
+		private final RowFactory<T> factory;
+		private SplittableRandom random;
+
+		Rows(long index, long end, long seed, long dataset, RowFactory<T> factory) {
+			this.index = index;
+			this.end = end;
+			this.seed = seed;
+			this.dataset = dataset;
+			this.factory = factory;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (index >= end) {
+				return false;
+			}
+			action.accept(next());
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			while (index < end) {
+				action.accept(next());
+			}
+		}
+
+		private T next() {
+			if (index % CHUNK == 0) {
+				random = new SplittableRandom(chunkSeed(seed, dataset, index / CHUNK));
+			}
+			return factory.row(index++, random);
+		}
+
+		// Only between chunks, so that every chunk is drawn by one spliterator from its start.
+		@Override
+		public Spliterator<T> trySplit() {
+			if (index % CHUNK != 0) {
+				return null;
+			}
+			long chunks = (end - index + CHUNK - 1) / CHUNK;
+			if (chunks < 2) {
+				return null;
+			}
+			long mid = index + chunks / 2 * CHUNK;
+			Rows<T> prefix = new Rows<>(index, mid, seed, dataset, factory);
+			index = mid;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return end - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+		}
+	}
+}
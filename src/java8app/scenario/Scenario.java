@@ -0,0 +1,148 @@
+package java8app.scenario;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import java8app.model.Hosting;
+import java8app.model.Item;
+import java8app.model.Person;
+import java8app.model.Student;
+
+// The pipelines of the Java8Examples demos, run by ScenarioRunner on generated datasets.
+public enum Scenario {
+
+	GROUPING_BY_CITY(Dataset.PERSONS, "groupingByOnStreams") {
+		@Override
+		Object run(Stream<?> rows) {
+			return persons(rows).collect(Collectors.groupingBy(Person::getCity));
+		}
+	},
+	GROUPING_BY_STATE_AND_CITY(Dataset.PERSONS, "groupingByOnStreams") {
+		@Override
+		Object run(Stream<?> rows) {
+			return persons(rows).collect(Collectors.groupingBy(Person::getState, Collectors.groupingBy(Person::getCity)));
+		}
+	},
+	FILTER_MAP(Dataset.PERSONS, "filteringAStream") {
+		@Override
+		Object run(Stream<?> rows) {
+			return persons(rows).filter(x -> x.getAge() >= 18).map(Person::getName).collect(Collectors.toList());
+		}
+	},
+	COUNT_BY_NAME(Dataset.ITEMS, "groupCountMappingOnStreams") {
+		@Override
+		Object run(Stream<?> rows) {
+			return items(rows).collect(Collectors.groupingBy(Item::getName, Collectors.counting()));
+		}
+	},
+	SUM_QTY_BY_NAME(Dataset.ITEMS, "groupCountMappingOnStreams") {
+		@Override
+		Object run(Stream<?> rows) {
+			return items(rows).collect(Collectors.groupingBy(Item::getName, Collectors.summingInt(Item::getQty)));
+		}
+	},
+	AVERAGE_PRICE_BY_NAME(Dataset.ITEMS, "groupCountMappingOnStreams") {
+		@Override
+		Object run(Stream<?> rows) {
+			return items(rows).collect(Collectors.groupingBy(Item::getName,
+					Collectors.averagingDouble(item -> item.getPrice() / item.getQty())));
+		}
+	},
+	SORT_BY_COUNT(Dataset.ITEMS, "groupingAndSortingOnStream") {
+		@Override
+		Object run(Stream<?> rows) {
+			Map<String, Long> counts = items(rows).collect(Collectors.groupingBy(Item::getName, Collectors.counting()));
+			Map<String, Long> sorted = new LinkedHashMap<>();
+			counts.entrySet().stream()
+				.sorted(Map.Entry.<String, Long>comparingByValue()
+						.reversed().thenComparing(Map.Entry.<String, Long>comparingByKey()))
+				.forEachOrdered(entry -> sorted.put(entry.getKey(), entry.getValue()));
+			return sorted;
+		}
+	},
+	TO_MAP(Dataset.HOSTINGS, "convertListToMap") {
+		@Override
+		Object run(Stream<?> rows) {
+			return hostings(rows).collect(Collectors.toMap(Hosting::getId, Hosting::getName));
+		}
+	},
+	DISTINCT_BOOKS(Dataset.STUDENTS, "flatMap") {
+		@Override
+		Object run(Stream<?> rows) {
+			return students(rows).map(x -> x.getBook()).flatMap(x -> x.stream()).distinct().collect(Collectors.toList());
+		}
+	};
+
+	public enum Dataset {
+		PERSONS,
+		ITEMS,
+		HOSTINGS,
+		STUDENTS;
+
+		Stream<?> generate(DatasetGenerator generator, long rows) {
+			switch (this) {
+			case PERSONS:
+				return generator.persons(rows);
+			case ITEMS:
+				return generator.items(rows);
+			case HOSTINGS:
+				return generator.hostings(rows);
+			default:
+				return generator.students(rows);
+			}
+		}
+	}
+
+	private final Dataset dataset;
+	private final String demo;
+
+	Scenario(Dataset dataset, String demo) {
+		this.dataset = dataset;
+		this.demo = demo;
+	}
+
+	public Dataset dataset() {
+		return dataset;
+	}
+
+	// The Java8Examples method the pipeline comes from.
+	public String demo() {
+		return demo;
+	}
+
+	abstract Object run(Stream<?> rows);
+
+	// "1234 groups" or "1234 elements", to show that runs agree.
+	static String describe(Object result) {
+		if (result instanceof Map) {
+			return ((Map<?, ?>) result).size() + " groups";
+		}
+		if (result instanceof Collection) {
+			return ((Collection<?>) result).size() + " elements";
+		}
+		return String.valueOf(result);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Stream<Person> persons(Stream<?> rows) {
+		return (Stream<Person>) rows;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Stream<Item> items(Stream<?> rows) {
+		return (Stream<Item>) rows;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Stream<Hosting> hostings(Stream<?> rows) {
+		return (Stream<Hosting>) rows;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Stream<Student> students(Stream<?> rows) {
+		return (Stream<Student>) rows;
+	}
+}
@@ -0,0 +1,241 @@
+package java8app.scenario;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Command-line runner for the demo pipelines on generated data, e.g.
+//
+//     java -jar java8app-core.jar --scenario COUNT_BY_NAME,TO_MAP --rows 10000000 --skew 1.2
+//
+// Each dataset a selected scenario needs is generated once into memory (its generation rate is
+// reported), unless --generate asks to regenerate it inside every iteration, which is the way
+// to go past what fits in the heap. Every scenario runs its warm-up iterations, then the
+// measured ones, sequentially and/or in parallel, and reports the mean time per run, rows per
+// second, and the peak heap: the sum of the peaks of the heap pools since the measured
+// iterations started, so an upper bound.
+public final class ScenarioRunner {
+
+	private static final String USAGE = String.join("\n",
+			"usage: Java8Examples [options]",
+			"  --scenario NAME[,NAME...]  scenarios to run, or all (default all)",
+			"  --rows N                   rows per dataset (default 1000000)",
+			"  --seed S                   generator seed (default 42)",
+			"  --skew Z                   Zipf exponent of the grouping keys, 0 = uniform (default 1.0)",
+			"  --keys K                   distinct grouping keys (default 10000)",
+			"  --warmup W                 warm-up runs per scenario (default 3)",
+			"  --iterations I             measured runs per scenario (default 5)",
+			"  --mode M                   sequential, parallel or both (default both)",
+			"  --generate                 regenerate the rows in every run instead of keeping them in memory",
+			"  --list                     list the scenarios and exit",
+			"  --help                     print this message and exit");
+
+	private final DatasetGenerator generator;
+	private final List<Scenario> scenarios;
+	private final long rows;
+	private final int warmup;
+	private final int iterations;
+	private final List<Boolean> modes;
+	private final boolean generate;
+
+	private ScenarioRunner(DatasetGenerator generator, List<Scenario> scenarios, long rows, int warmup, int iterations,
+			List<Boolean> modes, boolean generate) {
+		this.generator = generator;
+		this.scenarios = scenarios;
+		this.rows = rows;
+		this.warmup = warmup;
+		this.iterations = iterations;
+		this.modes = modes;
+		this.generate = generate;
+	}
+
+	public static void main(String[] args) {
+		ScenarioRunner runner;
+		try {
+			runner = parse(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+			return;
+		}
+		if (runner != null) {
+			runner.run();
+		}
+	}
+
+	// null when only the list of scenarios or the usage was asked for.
+	static ScenarioRunner parse(String[] args) {
+		DatasetGenerator.Builder generator = DatasetGenerator.builder();
+		List<Scenario> scenarios = Arrays.asList(Scenario.values());
+		long rows = 1_000_000;
+		int warmup = 3;
+		int iterations = 5;
+		List<Boolean> modes = Arrays.asList(false, true);
+		boolean generate = false;
+		for (int i = 0; i < args.length; i++) {
+			String option = args[i];
+			switch (option) {
+			case "--list":
+				for (Scenario scenario : Scenario.values()) {
+					System.out.printf("%-28s %-9s from %s()%n", scenario, scenario.dataset(), scenario.demo());
+				}
+				return null;
+			case "--help":
+				System.out.println(USAGE);
+				return null;
+			case "--generate":
+				generate = true;
+				continue;
+			default:
+				break;
+			}
+			if (i + 1 == args.length) {
+				throw new IllegalArgumentException("Missing value for " + option);
+			}
+			String value = args[++i];
+			try {
+				switch (option) {
+				case "--scenario":
+					scenarios = scenarios(value);
+					break;
+				case "--rows":
+					rows = Long.parseLong(value.replace("_", ""));
+					break;
+				case "--seed":
+					generator.seed(Long.parseLong(value));
+					break;
+				case "--skew":
+					generator.skew(Double.parseDouble(value));
+					break;
+				case "--keys":
+					generator.keys(Integer.parseInt(value));
+					break;
+				case "--warmup":
+					warmup = Integer.parseInt(value);
+					break;
+				case "--iterations":
+					iterations = Math.max(1, Integer.parseInt(value));
+					break;
+				case "--mode":
+					modes = modes(value);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " + option);
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Not a number for " + option + ": " + value);
+			}
+		}
+		if (rows < 0) {
+			throw new IllegalArgumentException("--rows must not be negative: " + rows);
+		}
+		if (warmup < 0) {
+			throw new IllegalArgumentException("--warmup must not be negative: " + warmup);
+		}
+		if (!generate && rows > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("More rows than an array holds; add --generate");
+		}
+		return new ScenarioRunner(generator.build(), scenarios, rows, warmup, iterations, modes, generate);
+	}
+
+	private static List<Scenario> scenarios(String value) {
+		if ("all".equalsIgnoreCase(value)) {
+			return Arrays.asList(Scenario.values());
+		}
+		List<Scenario> scenarios = new ArrayList<>();
+		for (String name : value.split(",")) {
+			try {
+				scenarios.add(Scenario.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Unknown scenario " + name + "; see --list");
+			}
+		}
+		return scenarios;
+	}
+
+	private static List<Boolean> modes(String value) {
+		switch (value.toLowerCase(Locale.ROOT)) {
+		case "sequential":
+			return Arrays.asList(false);
+		case "parallel":
+			return Arrays.asList(true);
+		case "both":
+			return Arrays.asList(false, true);
+		default:
+			throw new IllegalArgumentException("Unknown mode " + value);
+		}
+	}
+
+	public void run() {
+		System.out.printf("rows=%d seed=%d skew=%.2f keys=%d warmup=%d iterations=%d source=%s cpus=%d%n", rows,
+				generator.seed(), generator.skew(), generator.keys(), warmup, iterations,
+				generate ? "generated per run" : "memory", Runtime.getRuntime().availableProcessors());
+		Map<Scenario.Dataset, Object[]> datasets = new EnumMap<>(Scenario.Dataset.class);
+		for (Scenario scenario : scenarios) {
+			Object[] data = null;
+			if (!generate) {
+				data = datasets.computeIfAbsent(scenario.dataset(), this::materialize);
+			}
+			for (boolean parallel : modes) {
+				measure(scenario, data, parallel);
+			}
+		}
+	}
+
+	private Object[] materialize(Scenario.Dataset dataset) {
+		long start = System.nanoTime();
+		Object[] data = dataset.generate(generator, rows).parallel().toArray();
+		long nanos = System.nanoTime() - start;
+		System.out.printf("generated %d %s in %.1f ms (%,.0f rows/s)%n", rows, dataset.toString().toLowerCase(Locale.ROOT),
+				nanos / 1e6, rows / (nanos / 1e9));
+		return data;
+	}
+
+	private void measure(Scenario scenario, Object[] data, boolean parallel) {
+		for (int i = 0; i < warmup; i++) {
+			scenario.run(source(scenario, data, parallel));
+		}
+		System.gc();
+		resetPeakHeap();
+		Object result = null;
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			result = scenario.run(source(scenario, data, parallel));
+		}
+		double nanosPerRun = (double) (System.nanoTime() - start) / iterations;
+		System.out.printf("%-28s %-10s %10.1f ms/run %,15.0f rows/s  peak heap %,7d MB  %s%n", scenario,
+				parallel ? "parallel" : "sequential", nanosPerRun / 1e6, rows / (nanosPerRun / 1e9),
+				peakHeap() >> 20, Scenario.describe(result));
+	}
+
+	private Stream<?> source(Scenario scenario, Object[] data, boolean parallel) {
+		Stream<?> rows = data != null ? Arrays.stream(data) : scenario.dataset().generate(generator, this.rows);
+		return parallel ? rows.parallel() : rows;
+	}
+
+	private static void resetPeakHeap() {
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				pool.resetPeakUsage();
+			}
+		}
+	}
+
+	private static long peakHeap() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+}
@@ -0,0 +1,86 @@
+package java8app.scenario;
+
+import java.util.SplittableRandom;
+
+// Zipf distribution over the ranks 1..n with exponent s: rank k is drawn with probability
+// proportional to 1 / k^s, so s = 0 is uniform and s around 1 gives the long-tailed key
+// frequencies of real grouping keys. Sampling uses rejection-inversion (Hoermann and
+// Derflinger), which needs O(1) memory for any n and accepts on the first try in most draws.
+public final class Zipf {
+
+	private final long n;
+	private final double s;
+	private final double hIntegralX1;
+	private final double hIntegralN;
+	private final double sTerm;
+
+	public Zipf(long n, double s) {
+		if (n < 1) {
+			throw new IllegalArgumentException("n must be positive");
+		}
+		if (s < 0) {
+			throw new IllegalArgumentException("s must not be negative");
+		}
+		this.n = n;
+		this.s = s;
+		this.hIntegralX1 = hIntegral(1.5) - 1;
+		this.hIntegralN = hIntegral(n + 0.5);
+		this.sTerm = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+	}
+
+	public long size() {
+		return n;
+	}
+
+	// A rank in 1..n.
+	public long sample(SplittableRandom random) {
+		if (s == 0) {
+			return 1 + random.nextLong(n);
+		}
+		while (true) {
+			double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+			double x = hIntegralInverse(u);
+			long k = (long) (x + 0.5);
+			if (k < 1) {
+				k = 1;
+			} else if (k > n) {
+				k = n;
+			}
+			if (k - x <= sTerm || u >= hIntegral(k + 0.5) - h(k)) {
+				return k;
+			}
+		}
+	}
+
+	// A key index in 0..n-1, index 0 being the most frequent.
+	public int sampleIndex(SplittableRandom random) {
+		return (int) (sample(random) - 1);
+	}
+
+	private double h(double x) {
+		return Math.exp(-s * Math.log(x));
+	}
+
+	private double hIntegral(double x) {
+		double logX = Math.log(x);
+		return helper2((1 - s) * logX) * logX;
+	}
+
+	private double hIntegralInverse(double x) {
+		double t = x * (1 - s);
+		if (t < -1) {
+			t = -1;
+		}
+		return Math.exp(helper1(t) * x);
+	}
+
+	// log1p(x) / x, continuous at 0
+	private static double helper1(double x) {
+		return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+	}
+
+	// expm1(x) / x, continuous at 0
+	private static double helper2(double x) {
+		return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+	}
+}
@@ -0,0 +1,91 @@
+package java8app.sketch;
+
+// Count-Min sketch (Cormode and Muthukrishnan 2005): depth rows of width counters. An item
+// increments one counter per row and its estimate is the smallest of those counters, so
+// estimates never undercount and overcount by at most epsilon * totalCount with probability
+// 1 - delta, where width = ceil(e / epsilon) and depth = ceil(ln(1 / delta)). Sketches with
+// the same dimensions merge by adding their counters.
+public final class CountMinSketch {
+
+	private final int width;
+	private final int depth;
+	private final long[] counters;
+	private long totalCount;
+
+	public CountMinSketch(int width, int depth) {
+		if (width < 1 || depth < 1) {
+			throw new IllegalArgumentException("width and depth must be positive");
+		}
+		this.width = width;
+		this.depth = depth;
+		this.counters = new long[width * depth];
+	}
+
+	public static CountMinSketch withError(double epsilon, double delta) {
+		if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+			throw new IllegalArgumentException("epsilon and delta must be in (0, 1)");
+		}
+		return new CountMinSketch((int) Math.ceil(Math.E / epsilon), (int) Math.ceil(Math.log(1 / delta)));
+	}
+
+	public double epsilon() {
+		return Math.E / width;
+	}
+
+	public double delta() {
+		return Math.exp(-depth);
+	}
+
+	public long totalCount() {
+		return totalCount;
+	}
+
+	public void add(Object item, long count) {
+		addHash(Hash64.hash(item), count);
+	}
+
+	public void addHash(long hash, long count) {
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int row = 0; row < depth; row++) {
+			counters[row * width + column(h1, h2, row)] += count;
+		}
+		totalCount += count;
+	}
+
+	public long estimate(Object item) {
+		return estimateHash(Hash64.hash(item));
+	}
+
+	public long estimateHash(long hash) {
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		long min = Long.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			min = Math.min(min, counters[row * width + column(h1, h2, row)]);
+		}
+		return min;
+	}
+
+	// Largest overcount to expect, with probability 1 - delta.
+	public long errorBound() {
+		return (long) Math.ceil(epsilon() * totalCount);
+	}
+
+	public CountMinSketch merge(CountMinSketch other) {
+		if (other.width != width || other.depth != depth) {
+			throw new IllegalArgumentException("Cannot merge sketches of different dimensions");
+		}
+		for (int i = 0; i < counters.length; i++) {
+			counters[i] += other.counters[i];
+		}
+		totalCount += other.totalCount;
+		return this;
+	}
+
+	// Row hashes h1 + row * h2 (Kirsch and Mitzenmacher), from one 64-bit hash.
+	private int column(int h1, int h2, int row) {
+		int combined = h1 + row * h2;
+		return (combined & Integer.MAX_VALUE) % width;
+	}
+}
@@ -0,0 +1,38 @@
+package java8app.sketch;
+
+// 64-bit hashes for the sketches. Strings are hashed over all their chars, since a 32-bit
+// hashCode collides too often once there are billions of distinct values; other objects fall
+// back to a mixed hashCode.
+public final class Hash64 {
+
+	private Hash64() {
+	}
+
+	public static long hash(Object o) {
+		if (o instanceof CharSequence) {
+			return hash((CharSequence) o);
+		}
+		if (o instanceof Long) {
+			return mix((Long) o);
+		}
+		return mix(o == null ? 0 : o.hashCode());
+	}
+
+	public static long hash(CharSequence s) {
+		long h = 0x9E3779B97F4A7C15L ^ s.length();
+		for (int i = 0; i < s.length(); i++) {
+			h = (h ^ s.charAt(i)) * 0x100000001B3L;
+		}
+		return mix(h);
+	}
+
+	// MurmurHash3 fmix64
+	public static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,106 @@
+package java8app.sketch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+
+// Bounded-memory group-count for unbounded key spaces: a Space-Saving summary keeps the
+// candidate heavy hitters, and a Count-Min sketch over every key tightens their counts. For
+// each kept key the true count lies in [lowerBound, upperBound]: the upper bound is the
+// smaller of the two overestimates, the lower bound is the Space-Saving count minus its
+// error. Memory depends only on capacity, epsilon and delta, never on the number of distinct
+// keys, and two instances with the same settings merge.
+public final class HeavyHitters<K> {
+
+	private final SpaceSaving<K> summary;
+	private final CountMinSketch sketch;
+
+	public HeavyHitters(int capacity, double epsilon, double delta) {
+		this.summary = new SpaceSaving<>(capacity);
+		this.sketch = CountMinSketch.withError(epsilon, delta);
+	}
+
+	public void add(K key) {
+		add(key, 1L);
+	}
+
+	public void add(K key, long count) {
+		Objects.requireNonNull(key, "element cannot be mapped to a null key");
+		summary.add(key, count);
+		sketch.add(key, count);
+	}
+
+	public HeavyHitters<K> merge(HeavyHitters<K> other) {
+		summary.merge(other.summary);
+		sketch.merge(other.sketch);
+		return this;
+	}
+
+	public long totalCount() {
+		return sketch.totalCount();
+	}
+
+	// Upper bound of the count of any key, tracked or not.
+	public long estimate(K key) {
+		return sketch.estimate(key);
+	}
+
+	// The k largest tracked keys by estimated count, ties by keyOrder.
+	public List<Entry<K>> top(int k, Comparator<? super K> keyOrder) {
+		List<Entry<K>> entries = new ArrayList<>();
+		for (SpaceSaving.Counter<K> counter : summary.counters()) {
+			long upper = Math.min(counter.count(), sketch.estimate(counter.key()));
+			long lower = Math.max(0, counter.count() - counter.error());
+			entries.add(new Entry<>(counter.key(), upper, Math.min(lower, upper)));
+		}
+		entries.sort(Comparator.<Entry<K>>comparingLong(Entry::count).reversed()
+				.thenComparing(Entry::key, keyOrder));
+		return entries.size() > k ? new ArrayList<>(entries.subList(0, k)) : entries;
+	}
+
+	// The shape of groupingAndSortingOnStream(): count desc, then key by keyOrder.
+	public LinkedHashMap<K, Long> topCounts(int k, Comparator<? super K> keyOrder) {
+		LinkedHashMap<K, Long> counts = new LinkedHashMap<>();
+		for (Entry<K> entry : top(k, keyOrder)) {
+			counts.put(entry.key(), entry.count());
+		}
+		return counts;
+	}
+
+	public static final class Entry<K> {
+
+		private final K key;
+		private final long count;
+		private final long lowerBound;
+
+		Entry(K key, long count, long lowerBound) {
+			this.key = key;
+			this.count = count;
+			this.lowerBound = lowerBound;
+		}
+
+		public K key() {
+			return key;
+		}
+
+		// Estimated count; it is also the upper bound.
+		public long count() {
+			return count;
+		}
+
+		public long upperBound() {
+			return count;
+		}
+
+		public long lowerBound() {
+			return lowerBound;
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + count + (lowerBound == count ? "" : " [" + lowerBound + ".." + count + "]");
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package java8app.sketch;
+
+// HyperLogLog distinct-count estimator (Flajolet et al. 2007) with 2^precision one-byte
+// registers and 64-bit hashes. The relative standard error is about 1.04 / sqrt(2^precision),
+// e.g. 0.8% in 16 KB at precision 14. Small cardinalities use linear counting. Sketches of
+// equal precision merge by taking the register-wise maximum, which is what makes them usable
+// from parallel streams.
+public final class HyperLogLog {
+
+	public static final int MIN_PRECISION = 4;
+	public static final int MAX_PRECISION = 18;
+
+	private final int precision;
+	private final byte[] registers;
+
+	public HyperLogLog(int precision) {
+		if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+			throw new IllegalArgumentException("precision must be in " + MIN_PRECISION + ".." + MAX_PRECISION + ": " + precision);
+		}
+		this.precision = precision;
+		this.registers = new byte[1 << precision];
+	}
+
+	// Smallest precision whose standard error is at most relativeError.
+	public static int precisionFor(double relativeError) {
+		if (!(relativeError > 0 && relativeError < 1)) {
+			throw new IllegalArgumentException("relativeError must be in (0, 1): " + relativeError);
+		}
+		double registers = Math.pow(1.04 / relativeError, 2);
+		int precision = (int) Math.ceil(Math.log(registers) / Math.log(2));
+		return Math.max(MIN_PRECISION, Math.min(MAX_PRECISION, precision));
+	}
+
+	public int precision() {
+		return precision;
+	}
+
+	public double standardError() {
+		return 1.04 / Math.sqrt(registers.length);
+	}
+
+	public void add(Object o) {
+		addHash(Hash64.hash(o));
+	}
+
+	public void addHash(long hash) {
+		int index = (int) (hash >>> (64 - precision));
+		// rank of the first 1-bit in the remaining bits; the sentinel bit caps it
+		long rest = (hash << precision) | (1L << (precision - 1));
+		byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+		if (rank > registers[index]) {
+			registers[index] = rank;
+		}
+	}
+
+	public HyperLogLog merge(HyperLogLog other) {
+		if (other.precision != precision) {
+			throw new IllegalArgumentException("Cannot merge precision " + other.precision + " into " + precision);
+		}
+		for (int i = 0; i < registers.length; i++) {
+			if (other.registers[i] > registers[i]) {
+				registers[i] = other.registers[i];
+			}
+		}
+		return this;
+	}
+
+	public long estimate() {
+		int m = registers.length;
+		double sum = 0;
+		int zeros = 0;
+		for (byte register : registers) {
+			sum += 1.0 / (1L << register);
+			if (register == 0) {
+				zeros++;
+			}
+		}
+		double estimate = alpha(m) * m * m / sum;
+		if (estimate <= 2.5 * m && zeros > 0) {
+			estimate = m * Math.log((double) m / zeros);
+		}
+		return Math.round(estimate);
+	}
+
+	private static double alpha(int m) {
+		switch (m) {
+		case 16:
+			return 0.673;
+		case 32:
+			return 0.697;
+		case 64:
+			return 0.709;
+		default:
+			return 0.7213 / (1 + 1.079 / m);
+		}
+	}
+}
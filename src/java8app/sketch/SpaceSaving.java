@@ -0,0 +1,177 @@
+package java8app.sketch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Space-Saving top-k summary (Metwally et al. 2005) holding at most capacity counters. A new
+// key that finds the summary full takes over the smallest counter and inherits its count as
+// error, so every kept count overestimates by at most its error, and any key occurring more
+// than totalCount / capacity times is guaranteed to be kept. Summaries merge as described by
+// Agarwal et al. (mergeable summaries): a key missing from one side is charged that side's
+// minimum count, and the largest capacity counters are kept.
+//
+// The counters sit in a binary min-heap ordered by count, then by the sequence of their last
+// update, and each counter knows its slot. An increment only grows a count, so the counter
+// sifts down from where it is, and a new key that finds the summary full reuses the root
+// counter; neither allocates.
+public final class SpaceSaving<K> {
+
+	private final int capacity;
+	private final Map<K, Counter<K>> counters = new HashMap<>();
+	private final Counter<K>[] heap;
+	private long sequence;
+	private long totalCount;
+
+	public SpaceSaving(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+		this.capacity = capacity;
+		@SuppressWarnings("unchecked")
+		Counter<K>[] heap = (Counter<K>[]) new Counter<?>[capacity];
+		this.heap = heap;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public long totalCount() {
+		return totalCount;
+	}
+
+	public void add(K key, long count) {
+		totalCount += count;
+		Counter<K> counter = counters.get(key);
+		if (counter != null) {
+			update(counter, counter.count + count, counter.error);
+		} else if (counters.size() < capacity) {
+			insert(key, count, 0);
+		} else {
+			Counter<K> smallest = heap[0];
+			counters.remove(smallest.key);
+			smallest.key = key;
+			counters.put(key, smallest);
+			update(smallest, smallest.count + count, smallest.count);
+		}
+	}
+
+	// Smallest kept count, or 0 while the summary has room; an absent key occurred at most this often.
+	public long minCount() {
+		return counters.size() < capacity ? 0 : heap[0].count;
+	}
+
+	public SpaceSaving<K> merge(SpaceSaving<K> other) {
+		long thisMin = minCount();
+		long otherMin = other.minCount();
+		Set<K> keys = new HashSet<>(counters.keySet());
+		keys.addAll(other.counters.keySet());
+		List<Counter<K>> merged = new ArrayList<>(keys.size());
+		for (K key : keys) {
+			Counter<K> mine = counters.get(key);
+			Counter<K> theirs = other.counters.get(key);
+			long count = (mine == null ? thisMin : mine.count) + (theirs == null ? otherMin : theirs.count);
+			long error = (mine == null ? thisMin : mine.error) + (theirs == null ? otherMin : theirs.error);
+			merged.add(new Counter<>(key, count, error, 0));
+		}
+		merged.sort(Comparator.<Counter<K>>comparingLong(c -> c.count).reversed());
+		counters.clear();
+		Arrays.fill(heap, null);
+		for (int i = 0; i < Math.min(capacity, merged.size()); i++) {
+			insert(merged.get(i).key, merged.get(i).count, merged.get(i).error);
+		}
+		totalCount += other.totalCount;
+		return this;
+	}
+
+	// Snapshot of the kept keys with their (over)estimated counts and errors, largest count first.
+	public List<Counter<K>> counters() {
+		List<Counter<K>> snapshot = new ArrayList<>(counters.size());
+		for (int i = 0; i < counters.size(); i++) {
+			snapshot.add(new Counter<>(heap[i].key, heap[i].count, heap[i].error, heap[i].sequence));
+		}
+		snapshot.sort(Comparator.<Counter<K>>comparingLong(c -> c.count).thenComparingLong(c -> c.sequence).reversed());
+		return snapshot;
+	}
+
+	private void insert(K key, long count, long error) {
+		Counter<K> counter = new Counter<>(key, count, error, sequence++);
+		int slot = counters.size();
+		counters.put(key, counter);
+		while (slot > 0 && less(counter, heap[(slot - 1) >>> 1])) {
+			int parent = (slot - 1) >>> 1;
+			place(heap[parent], slot);
+			slot = parent;
+		}
+		place(counter, slot);
+	}
+
+	// Moves the counter under its new count, which is never smaller than the old one.
+	private void update(Counter<K> counter, long count, long error) {
+		counter.count = count;
+		counter.error = error;
+		counter.sequence = sequence++;
+		int size = counters.size();
+		int slot = counter.slot;
+		while (true) {
+			int child = 2 * slot + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && less(heap[child + 1], heap[child])) {
+				child++;
+			}
+			if (!less(heap[child], counter)) {
+				break;
+			}
+			place(heap[child], slot);
+			slot = child;
+		}
+		place(counter, slot);
+	}
+
+	private void place(Counter<K> counter, int slot) {
+		heap[slot] = counter;
+		counter.slot = slot;
+	}
+
+	private static boolean less(Counter<?> a, Counter<?> b) {
+		return a.count < b.count || a.count == b.count && a.sequence < b.sequence;
+	}
+
+	public static final class Counter<K> {
+
+		private K key;
+		private long count;
+		private long error;
+		private long sequence;
+		private int slot;
+
+		Counter(K key, long count, long error, long sequence) {
+			this.key = key;
+			this.count = count;
+			this.error = error;
+			this.sequence = sequence;
+		}
+
+		public K key() {
+			return key;
+		}
+
+		// Upper bound of the true count.
+		public long count() {
+			return count;
+		}
+
+		// The true count is at least count() - error().
+		public long error() {
+			return error;
+		}
+	}
+}
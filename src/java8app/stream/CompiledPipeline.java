@@ -0,0 +1,121 @@
+package java8app.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+import java8app.stream.FusedKernels.Kernel;
+
+// A compiled Pipeline with the terminal operations of the examples. Each one copies the
+// source into an array once, runs the fused kernel over it and builds its result from the
+// compacted prefix, so outputs are allocated once at their final size. Results are equal to
+// those of source.stream().filter(..).map(..) followed by the matching collector; like
+// sequential streams, the kernels run on the calling thread.
+public final class CompiledPipeline<T, R> {
+
+	private final Kernel kernel;
+	private final boolean sizePreserving;
+
+	CompiledPipeline(Kernel kernel, boolean sizePreserving) {
+		this.kernel = kernel;
+		this.sizePreserving = sizePreserving;
+	}
+
+	// collect(Collectors.toList())
+	public List<R> toList(Collection<? extends T> source) {
+		Object[] elements = source.toArray();
+		int size = kernel.fuse(elements, elements.length);
+		return new ArrayList<R>(prefix(elements, size));
+	}
+
+	// collect(Collectors.toMap(keyMapper, valueMapper)), including the exceptions for
+	// duplicate keys and null values
+	public <K, V> Map<K, V> toMap(Collection<? extends T> source, Function<? super R, ? extends K> keyMapper,
+			Function<? super R, ? extends V> valueMapper) {
+		Object[] elements = source.toArray();
+		int size = kernel.fuse(elements, elements.length);
+		Map<K, V> map = new HashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+		for (int i = 0; i < size; i++) {
+			R r = element(elements, i);
+			K key = keyMapper.apply(r);
+			V value = Objects.requireNonNull(valueMapper.apply(r));
+			V existing = map.putIfAbsent(key, value);
+			if (existing != null) {
+				throw new IllegalStateException(String.format("Duplicate key %s (attempted merging values %s and %s)",
+						key, existing, value));
+			}
+		}
+		return map;
+	}
+
+	// map(String::valueOf).collect(Collectors.joining(delimiter))
+	public String joining(Collection<? extends T> source, CharSequence delimiter) {
+		Object[] elements = source.toArray();
+		int size = kernel.fuse(elements, elements.length);
+		StringBuilder joined = new StringBuilder();
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				joined.append(delimiter);
+			}
+			joined.append(elements[i]);
+		}
+		return joined.toString();
+	}
+
+	// collect(collector), accumulated sequentially into a single container
+	public <A, C> C collect(Collection<? extends T> source, Collector<? super R, A, C> collector) {
+		Object[] elements = source.toArray();
+		int size = kernel.fuse(elements, elements.length);
+		A container = collector.supplier().get();
+		BiConsumer<A, ? super R> accumulator = collector.accumulator();
+		for (int i = 0; i < size; i++) {
+			accumulate(accumulator, container, element(elements, i));
+		}
+		return finish(collector, container);
+	}
+
+	// findFirst(), and findAny() of a sequential stream; stops at the first result without
+	// copying the source
+	public Optional<R> findFirst(Collection<? extends T> source) {
+		Object[] found = new Object[1];
+		return kernel.first(source, found) ? Optional.of(element(found, 0)) : Optional.empty();
+	}
+
+	public long count(Collection<? extends T> source) {
+		if (sizePreserving) {
+			return source.size();
+		}
+		Object[] elements = source.toArray();
+		return kernel.fuse(elements, elements.length);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<R> prefix(Object[] elements, int size) {
+		List<R> all = (List<R>) Arrays.asList(elements);
+		return size == elements.length ? all : all.subList(0, size);
+	}
+
+	@SuppressWarnings("unchecked")
+	private R element(Object[] elements, int i) {
+		return (R) elements[i];
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <A, E> void accumulate(BiConsumer<A, E> accumulator, A container, Object element) {
+		accumulator.accept(container, (E) element);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <A, C> C finish(Collector<?, A, C> collector, A container) {
+		return collector.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)
+				? (C) container : collector.finisher().apply(container);
+	}
+}
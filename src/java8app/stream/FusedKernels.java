@@ -0,0 +1,359 @@
+package java8app.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import java8app.stream.Pipeline.Stage;
+
+// Loop kernels for the fused plan shapes. Each kernel runs filters and maps of one element
+// back to back in a single loop and compacts the results into the front of the input array.
+//
+// Stream pipelines share their stage classes between all pipelines, so once a few different
+// lambdas went through them the calls inside are megamorphic and nothing gets inlined. To
+// give compiled plans call sites of their own, the kernel class for a shape is defined again
+// from the same bytes in a private class loader: a JVM profiles every copy separately.
+//
+// A copy only ever sees the receiver types of the functions it was made for, so plans whose
+// functions have the same classes, such as one call site compiled in a loop, share a copy.
+// Each copy stays loaded for the life of the JVM, together with the function classes it was
+// made for: one class per distinct combination of lambda classes, which is bounded by the
+// call sites of the program. A template whose class file cannot be read is an error, as the
+// shared class would silently bring back the megamorphic calls.
+final class FusedKernels {
+
+	private static final ConcurrentHashMap<List<Class<?>>, Constructor<?>> COPIES = new ConcurrentHashMap<>();
+
+	private FusedKernels() {
+	}
+
+	// Public, like the templates' constructors, so that copies in other class loaders can
+	// implement it.
+	public interface Kernel {
+
+		// Filters and maps in[0, length) and stores the results in in[0, result), returning result.
+		int fuse(Object[] in, int length);
+
+		// Stores the first result in found[0]; false if there is none.
+		boolean first(Iterable<?> source, Object[] found);
+	}
+
+	static Kernel create(List<Stage> stages) {
+		StringBuilder shape = new StringBuilder();
+		for (Stage stage : stages) {
+			shape.append(stage.isFilter() ? 'F' : 'M');
+		}
+		switch (shape.toString()) {
+		case "":
+			return new Identity();
+		case "F":
+			return instantiate(Filter.class, stages.get(0).predicate);
+		case "M":
+			return instantiate(Mapper.class, stages.get(0).mapper);
+		case "FM":
+			return instantiate(FilterMap.class, stages.get(0).predicate, stages.get(1).mapper);
+		case "MF":
+			return instantiate(MapFilter.class, stages.get(0).mapper, stages.get(1).predicate);
+		case "FMF":
+			return instantiate(FilterMapFilter.class, stages.get(0).predicate, stages.get(1).mapper, stages.get(2).predicate);
+		default:
+			return new Chain(stages);
+		}
+	}
+
+	private static Kernel instantiate(Class<? extends Kernel> template, Object... functions) {
+		List<Class<?>> key = new ArrayList<>(functions.length + 1);
+		key.add(template);
+		for (Object function : functions) {
+			key.add(function.getClass());
+		}
+		try {
+			return (Kernel) COPIES.computeIfAbsent(key, k -> copyOf(template)).newInstance(functions);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot instantiate " + template.getName(), e);
+		}
+	}
+
+	private static Constructor<?> copyOf(Class<?> template) {
+		Class<?> type = new KernelLoader(template.getClassLoader()).define(template.getName(), read(template));
+		Constructor<?>[] constructors = type.getConstructors();
+		if (constructors.length != 1) {
+			throw new IllegalStateException("Expected one public constructor on " + template.getName());
+		}
+		// the copy is in a runtime package of its own
+		constructors[0].setAccessible(true);
+		return constructors[0];
+	}
+
+	private static byte[] read(Class<?> template) {
+		String resource = template.getName().substring(template.getName().lastIndexOf('.') + 1) + ".class";
+		try (InputStream in = template.getResourceAsStream(resource)) {
+			if (in == null) {
+				throw new IllegalStateException("Class file of " + template.getName() + " not found");
+			}
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			for (int n; (n = in.read(buffer)) > 0;) {
+				bytes.write(buffer, 0, n);
+			}
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read the class file of " + template.getName(), e);
+		}
+	}
+
+	private static final class KernelLoader extends ClassLoader {
+
+		KernelLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		Class<?> define(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+
+	// The templates below are copied per plan, so they may only use public types.
+
+	static final class Identity implements Kernel {
+
+		@Override
+		public int fuse(Object[] in, int length) {
+			return length;
+		}
+
+		@Override
+		public boolean first(Iterable<?> source, Object[] found) {
+			for (Object t : source) {
+				found[0] = t;
+				return true;
+			}
+			return false;
+		}
+	}
+
+	static final class Filter implements Kernel {
+
+		private final Predicate<Object> predicate;
+
+		public Filter(Predicate<Object> predicate) {
+			this.predicate = predicate;
+		}
+
+		@Override
+		public int fuse(Object[] in, int length) {
+			int n = 0;
+			for (int i = 0; i < length; i++) {
+				Object t = in[i];
+				if (predicate.test(t)) {
+					in[n++] = t;
+				}
+			}
+			return n;
+		}
+
+		@Override
+		public boolean first(Iterable<?> source, Object[] found) {
+			for (Object t : source) {
+				if (predicate.test(t)) {
+					found[0] = t;
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	static final class Mapper implements Kernel {
+
+		private final Function<Object, Object> mapper;
+
+		public Mapper(Function<Object, Object> mapper) {
+			this.mapper = mapper;
+		}
+
+		@Override
+		public int fuse(Object[] in, int length) {
+			for (int i = 0; i < length; i++) {
+				in[i] = mapper.apply(in[i]);
+			}
+			return length;
+		}
+
+		@Override
+		public boolean first(Iterable<?> source, Object[] found) {
+			for (Object t : source) {
+				found[0] = mapper.apply(t);
+				return true;
+			}
+			return false;
+		}
+	}
+
+	static final class FilterMap implements Kernel {
+
+		private final Predicate<Object> predicate;
+		private final Function<Object, Object> mapper;
+
+		public FilterMap(Predicate<Object> predicate, Function<Object, Object> mapper) {
+			this.predicate = predicate;
+			this.mapper = mapper;
+		}
+
+		@Override
+		public int fuse(Object[] in, int length) {
+			int n = 0;
+			for (int i = 0; i < length; i++) {
+				Object t = in[i];
+				if (predicate.test(t)) {
+					in[n++] = mapper.apply(t);
+				}
+			}
+			return n;
+		}
+
+		@Override
+		public boolean first(Iterable<?> source, Object[] found) {
+			for (Object t : source) {
+				if (predicate.test(t)) {
+					found[0] = mapper.apply(t);
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	static final class MapFilter implements Kernel {
+
+		private final Function<Object, Object> mapper;
+		private final Predicate<Object> predicate;
+
+		public MapFilter(Function<Object, Object> mapper, Predicate<Object> predicate) {
+			this.mapper = mapper;
+			this.predicate = predicate;
+		}
+
+		@Override
+		public int fuse(Object[] in, int length) {
+			int n = 0;
+			for (int i = 0; i < length; i++) {
+				Object r = mapper.apply(in[i]);
+				if (predicate.test(r)) {
+					in[n++] = r;
+				}
+			}
+			return n;
+		}
+
+		@Override
+		public boolean first(Iterable<?> source, Object[] found) {
+			for (Object t : source) {
+				Object r = mapper.apply(t);
+				if (predicate.test(r)) {
+					found[0] = r;
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	static final class FilterMapFilter implements Kernel {
+
+		private final Predicate<Object> before;
+		private final Function<Object, Object> mapper;
+		private final Predicate<Object> after;
+
+		public FilterMapFilter(Predicate<Object> before, Function<Object, Object> mapper, Predicate<Object> after) {
+			this.before = before;
+			this.mapper = mapper;
+			this.after = after;
+		}
+
+		@Override
+		public int fuse(Object[] in, int length) {
+			int n = 0;
+			for (int i = 0; i < length; i++) {
+				Object t = in[i];
+				if (before.test(t)) {
+					Object r = mapper.apply(t);
+					if (after.test(r)) {
+						in[n++] = r;
+					}
+				}
+			}
+			return n;
+		}
+
+		@Override
+		public boolean first(Iterable<?> source, Object[] found) {
+			for (Object t : source) {
+				if (before.test(t)) {
+					Object r = mapper.apply(t);
+					if (after.test(r)) {
+						found[0] = r;
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+	}
+
+	// Longer plans: still one loop, stepping through the stages per element.
+	static final class Chain implements Kernel {
+
+		private static final Object NONE = new Object();
+
+		private final Stage[] stages;
+
+		Chain(List<Stage> stages) {
+			this.stages = stages.toArray(new Stage[0]);
+		}
+
+		@Override
+		public int fuse(Object[] in, int length) {
+			int n = 0;
+			for (int i = 0; i < length; i++) {
+				Object r = apply(in[i]);
+				if (r != NONE) {
+					in[n++] = r;
+				}
+			}
+			return n;
+		}
+
+		@Override
+		public boolean first(Iterable<?> source, Object[] found) {
+			for (Object t : source) {
+				Object r = apply(t);
+				if (r != NONE) {
+					found[0] = r;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private Object apply(Object t) {
+			for (Stage stage : stages) {
+				if (stage.isFilter()) {
+					if (!stage.predicate.test(t)) {
+						return NONE;
+					}
+				} else {
+					t = stage.mapper.apply(t);
+				}
+			}
+			return t;
+		}
+	}
+}
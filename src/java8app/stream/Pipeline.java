@@ -0,0 +1,92 @@
+package java8app.stream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Plan of a filter/map chain such as the ones in convertMaptToList(), filteringAMap() and
+// filteringAStream(), compiled once into a CompiledPipeline that runs the whole chain as one
+// loop, with no Sink per stage:
+//
+//   CompiledPipeline<Person, String> names = Pipeline.<Person>start()
+//           .filter(x -> "michael".equals(x.getName()))
+//           .map(Person::getName)
+//           .compile();
+//   List<String> result = names.toList(persons);
+//
+// Plans are immutable; filter() and map() return a new plan.
+public final class Pipeline<T, R> {
+
+	private final List<Stage> stages;
+
+	private Pipeline(List<Stage> stages) {
+		this.stages = stages;
+	}
+
+	public static <T> Pipeline<T, T> start() {
+		return new Pipeline<>(Collections.<Stage>emptyList());
+	}
+
+	public Pipeline<T, R> filter(Predicate<? super R> predicate) {
+		return then(new Stage(Objects.requireNonNull(predicate), null));
+	}
+
+	public <V> Pipeline<T, V> map(Function<? super R, ? extends V> mapper) {
+		return then(new Stage(null, Objects.requireNonNull(mapper)));
+	}
+
+	private <V> Pipeline<T, V> then(Stage stage) {
+		List<Stage> next = new ArrayList<>(stages.size() + 1);
+		next.addAll(stages);
+		next.add(stage);
+		return new Pipeline<>(next);
+	}
+
+	// Fuses adjacent filters and adjacent maps, then instantiates the kernel for the resulting
+	// shape in its own class (see FusedKernels). Compile once and reuse the result.
+	public CompiledPipeline<T, R> compile() {
+		List<Stage> fused = new ArrayList<>();
+		for (Stage stage : stages) {
+			Stage last = fused.isEmpty() ? null : fused.get(fused.size() - 1);
+			if (last != null && last.isFilter() == stage.isFilter()) {
+				fused.set(fused.size() - 1, last.fuse(stage));
+			} else {
+				fused.add(stage);
+			}
+		}
+		return new CompiledPipeline<>(FusedKernels.create(fused), !fused.stream().anyMatch(Stage::isFilter));
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder plan = new StringBuilder("source");
+		for (Stage stage : stages) {
+			plan.append(stage.isFilter() ? " -> filter" : " -> map");
+		}
+		return plan.toString();
+	}
+
+	// Exactly one of predicate and mapper is set.
+	static final class Stage {
+
+		final Predicate<Object> predicate;
+		final Function<Object, Object> mapper;
+
+		@SuppressWarnings("unchecked")
+		Stage(Predicate<?> predicate, Function<?, ?> mapper) {
+			this.predicate = (Predicate<Object>) predicate;
+			this.mapper = (Function<Object, Object>) mapper;
+		}
+
+		boolean isFilter() {
+			return predicate != null;
+		}
+
+		Stage fuse(Stage next) {
+			return isFilter() ? new Stage(predicate.and(next.predicate), null) : new Stage(null, mapper.andThen(next.mapper));
+		}
+	}
+}
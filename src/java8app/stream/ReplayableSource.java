@@ -0,0 +1,140 @@
+package java8app.stream;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Replacement for the Supplier<Stream<T>> workaround of resusingAStream(). The supplier is
+// invoked once: the first stream() call drains it into an exactly sized array, and every call
+// returns a stream over that array. Array spliterators are SIZED and SUBSIZED and split
+// evenly, so later passes parallelize well even when the source (an iterator, a parse) does
+// not.
+//
+// An optional byte budget bounds the buffer. Buffered bytes are estimated as one reference
+// per element plus what the sizer reports. If the first pass goes over the budget, the
+// elements read so far are streamed followed by the rest of the source, nothing is kept, and
+// later passes call the supplier again. evict() drops the buffer explicitly; the next pass
+// then rebuilds it.
+public final class ReplayableSource<T> {
+
+	// Conservative per-element cost of the buffer slot itself (uncompressed reference).
+	static final long REFERENCE_BYTES = 8;
+
+	private final Supplier<? extends Stream<T>> source;
+	private final long byteBudget;
+	private final ToLongFunction<? super T> sizer;
+
+	private Object[] buffer;
+	private long bufferedBytes;
+	private boolean overBudget;
+
+	private ReplayableSource(Supplier<? extends Stream<T>> source, long byteBudget, ToLongFunction<? super T> sizer) {
+		this.source = Objects.requireNonNull(source);
+		this.byteBudget = byteBudget;
+		this.sizer = sizer;
+	}
+
+	public static <T> ReplayableSource<T> of(Supplier<? extends Stream<T>> source) {
+		return new ReplayableSource<>(source, Long.MAX_VALUE, t -> 0L);
+	}
+
+	public static <T> ReplayableSource<T> of(Supplier<? extends Stream<T>> source, long byteBudget,
+			ToLongFunction<? super T> sizer) {
+		if (byteBudget < 0) {
+			throw new IllegalArgumentException("byteBudget must not be negative: " + byteBudget);
+		}
+		return new ReplayableSource<>(source, byteBudget, Objects.requireNonNull(sizer));
+	}
+
+	// Replays a fixed array without copying it. The array is kept, but only ever read, so a
+	// generic varargs array cannot pollute the heap through it.
+	@SafeVarargs
+	@SuppressWarnings("varargs")
+	public static <T> ReplayableSource<T> ofArray(T... elements) {
+		ReplayableSource<T> replayable = of(() -> Arrays.stream(elements));
+		replayable.buffer = elements;
+		replayable.bufferedBytes = elements.length * REFERENCE_BYTES;
+		return replayable;
+	}
+
+	// A new sequential stream over the source; call parallel() on it as usual.
+	public Stream<T> stream() {
+		Object[] elements;
+		synchronized (this) {
+			if (buffer == null && !overBudget) {
+				return materialize();
+			}
+			elements = buffer;
+		}
+		if (elements == null) {
+			return source.get();
+		}
+		return StreamSupport.stream(spliterator(elements), false);
+	}
+
+	public synchronized boolean isBuffered() {
+		return buffer != null;
+	}
+
+	public synchronized long bufferedBytes() {
+		return buffer == null ? 0 : bufferedBytes;
+	}
+
+	// Drops the buffer; the next stream() reads the source again and re-buffers it if it fits.
+	public synchronized void evict() {
+		buffer = null;
+		bufferedBytes = 0;
+		overBudget = false;
+	}
+
+	// Runs the first pass. Called with the lock held.
+	// The source stream is closed once drained, or, when the budget runs out, by closing the
+	// returned stream that goes on reading it.
+	private Stream<T> materialize() {
+		Stream<T> stream = source.get();
+		boolean handedOver = false;
+		try {
+			Spliterator<T> split = stream.spliterator();
+			// A sized source is allocated for up front, but never for more elements than the
+			// budget can hold; past that the array grows as it fills.
+			long estimate = split.getExactSizeIfKnown();
+			long capacity = estimate >= 0 ? Math.min(estimate, byteBudget / REFERENCE_BYTES + 1) : 16;
+			Object[] elements = new Object[capacity < Integer.MAX_VALUE - 8 ? (int) capacity : 16];
+			int size = 0;
+			long bytes = 0;
+			Object[] holder = new Object[1];
+			while (split.tryAdvance(t -> holder[0] = t)) {
+				@SuppressWarnings("unchecked")
+				T t = (T) holder[0];
+				bytes += REFERENCE_BYTES + sizer.applyAsLong(t);
+				if (size == elements.length) {
+					elements = Arrays.copyOf(elements, Math.max(16, size + (size >> 1)));
+				}
+				elements[size++] = t;
+				if (bytes > byteBudget) {
+					overBudget = true;
+					Stream<T> read = StreamSupport.stream(spliterator(Arrays.copyOf(elements, size)), false);
+					Stream<T> rest = Stream.concat(read, StreamSupport.stream(split, false)).onClose(stream::close);
+					handedOver = true;
+					return rest;
+				}
+			}
+			buffer = size == elements.length ? elements : Arrays.copyOf(elements, size);
+			bufferedBytes = bytes;
+			return StreamSupport.stream(spliterator(buffer), false);
+		} finally {
+			if (!handedOver) {
+				stream.close();
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Spliterator<T> spliterator(Object[] elements) {
+		return (Spliterator<T>) Arrays.spliterator(elements);
+	}
+}
@@ -0,0 +1,99 @@
+package java8app.collect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java8app.io.RecordCodecs;
+import java8app.model.Item;
+
+// A parallel collect runs the collector on many small leaves and then combines them. None of
+// the leaves below holds enough to spill on its own, so only combining can keep the collect
+// within its budget.
+public class ExternalGroupingTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void combiningSmallLeavesSpillsOverBudget() throws Exception {
+		File directory = folder.newFolder();
+		List<Item> items = items(64 * 50);
+		Collector<Item, ?, ExternalGroups<String, List<Integer>>> collector = ExternalGrouping.builder(RecordCodecs.ITEM)
+				.memoryBudget(1600)
+				.sizer(item -> 1)
+				.partitions(4)
+				.directory(directory.toPath())
+				.groupingBy(Item::getName, Collectors.mapping(Item::getQty, Collectors.toList()));
+		try (ExternalGroups<String, List<Integer>> groups = collectInLeaves(collector, items, 64)) {
+			assertTrue(groups.isSpilled());
+			assertTrue(directory.list().length > 0);
+			assertEquals(items.stream().collect(Collectors.groupingBy(Item::getName,
+					Collectors.mapping(Item::getQty, Collectors.toList()))), groups.toMap());
+		}
+		assertEquals(0, directory.list().length);
+	}
+
+	@Test
+	public void leavesWithinBudgetStayInMemory() throws Exception {
+		File directory = folder.newFolder();
+		List<Item> items = items(64 * 50);
+		Collector<Item, ?, ExternalGroups<String, List<Integer>>> collector = ExternalGrouping.builder(RecordCodecs.ITEM)
+				.memoryBudget(items.size())
+				.sizer(item -> 1)
+				.directory(directory.toPath())
+				.groupingBy(Item::getName, Collectors.mapping(Item::getQty, Collectors.toList()));
+		try (ExternalGroups<String, List<Integer>> groups = collectInLeaves(collector, items, 64)) {
+			assertFalse(groups.isSpilled());
+			assertEquals(0, directory.list().length);
+			assertEquals(items.stream().collect(Collectors.groupingBy(Item::getName,
+					Collectors.mapping(Item::getQty, Collectors.toList()))), groups.toMap());
+		}
+	}
+
+	private static List<Item> items(int n) {
+		List<Item> items = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			items.add(new Item("item" + i % 37, i, i % 11));
+		}
+		return items;
+	}
+
+	// What a parallel stream does with `leaves` equal splits, combined pairwise in encounter order.
+	private static <T, A, R> R collectInLeaves(Collector<T, A, R> collector, List<T> elements, int leaves) {
+		Supplier<A> supplier = collector.supplier();
+		BiConsumer<A, T> accumulator = collector.accumulator();
+		List<A> containers = new ArrayList<>(leaves);
+		int leafSize = elements.size() / leaves;
+		for (int leaf = 0; leaf < leaves; leaf++) {
+			A container = supplier.get();
+			for (T t : elements.subList(leaf * leafSize, leaf == leaves - 1 ? elements.size() : (leaf + 1) * leafSize)) {
+				accumulator.accept(container, t);
+			}
+			containers.add(container);
+		}
+		BinaryOperator<A> combiner = collector.combiner();
+		while (containers.size() > 1) {
+			List<A> combined = new ArrayList<>();
+			for (int i = 0; i < containers.size(); i += 2) {
+				combined.add(i + 1 < containers.size() ? combiner.apply(containers.get(i), containers.get(i + 1))
+						: containers.get(i));
+			}
+			containers = combined;
+		}
+		return collector.finisher().apply(containers.get(0));
+	}
+}
@@ -0,0 +1,87 @@
+package java8app.collect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+// topK must agree with sorted(comparator).limit(k), including which of several tied elements
+// come first, so the inputs have few distinct keys and many ties.
+public class TopKCollectorsTest {
+
+	private static final Comparator<Integer> BY_KEY = Comparator.comparingInt(i -> i % 4);
+
+	@Test
+	public void topKKeepsEncounterOrderAmongTies() {
+		Random random = new Random(42);
+		for (int run = 0; run < 1000; run++) {
+			List<Integer> values = randomValues(random, 30);
+			int k = random.nextInt(12);
+			assertEquals(values.stream().sorted(BY_KEY).limit(k).collect(Collectors.toList()),
+					values.stream().collect(TopKCollectors.topK(k, BY_KEY)));
+		}
+	}
+
+	@Test
+	public void parallelTopKMatchesSequential() {
+		Random random = new Random(7);
+		for (int run = 0; run < 200; run++) {
+			List<Integer> values = randomValues(random, 5000);
+			int k = 1 + random.nextInt(50);
+			assertEquals(values.stream().sorted(BY_KEY).limit(k).collect(Collectors.toList()),
+					values.parallelStream().collect(TopKCollectors.topK(k, BY_KEY)));
+		}
+	}
+
+	// Unordered: the kept elements may differ among ties, but their keys may not.
+	@Test
+	public void parallelTopKCollectorKeepsTheTopKeys() {
+		Random random = new Random(11);
+		for (int run = 0; run < 200; run++) {
+			List<Integer> values = randomValues(random, 5000);
+			int k = 1 + random.nextInt(50);
+			assertEquals(keys(values.stream().sorted(BY_KEY).limit(k).collect(Collectors.toList())),
+					keys(values.parallelStream().collect(TopKCollectors.parallelTopK(k, BY_KEY))));
+		}
+	}
+
+	@Test
+	public void topKByValueBreaksTiesByKey() {
+		Map<String, Integer> counts = new LinkedHashMap<>();
+		String[] names = {"pear", "apple", "kiwi", "banana", "fig", "lime"};
+		int[] values = {2, 3, 2, 3, 1, 2};
+		for (int i = 0; i < names.length; i++) {
+			counts.put(names[i], values[i]);
+		}
+		Map<String, Integer> top = counts.entrySet().stream().collect(TopKCollectors.topKByValue(4));
+		assertEquals("[apple, banana, kiwi, lime]", top.keySet().toString());
+	}
+
+	@Test
+	public void negativeKIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> TopKCollectors.topK(-1, BY_KEY));
+		assertThrows(IllegalArgumentException.class, () -> TopKCollectors.parallelTopK(-1, BY_KEY));
+		assertThrows(IllegalArgumentException.class, () -> TopKCollectors.<String, Integer>topKByValue(-1));
+	}
+
+	private static List<Integer> randomValues(Random random, int size) {
+		return IntStream.range(0, size).map(i -> random.nextInt(size)).boxed().collect(Collectors.toList());
+	}
+
+	private static List<Integer> keys(List<Integer> values) {
+		List<Integer> keys = new ArrayList<>(values.size());
+		for (Integer value : values) {
+			keys.add(value % 4);
+		}
+		return keys;
+	}
+}
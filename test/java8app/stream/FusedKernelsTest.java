@@ -0,0 +1,61 @@
+package java8app.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import java8app.stream.Pipeline.Stage;
+
+// Kernels are copies of their template class, one per combination of function classes: a call
+// site compiled again and again reuses its copy, and plans with other lambdas get their own.
+public class FusedKernelsTest {
+
+	@Test
+	public void recompilingOneCallSiteReusesItsKernelClass() {
+		Class<?> first = filterMap(10).getClass();
+		for (int i = 0; i < 100; i++) {
+			assertSame(first, filterMap(i).getClass());
+		}
+	}
+
+	@Test
+	public void otherLambdasGetTheirOwnKernelClass() {
+		Class<?> kernel = filterMap(10).getClass();
+		Class<?> other = FusedKernels.create(Arrays.asList(
+				new Stage((Predicate<Integer>) i -> i % 2 == 0, null),
+				new Stage(null, (Function<Integer, String>) i -> "#" + i))).getClass();
+		assertNotSame(kernel, other);
+		assertEquals(kernel.getName(), other.getName());
+		assertNotEquals(FusedKernels.FilterMap.class, kernel);
+		assertNotEquals(FusedKernels.FilterMap.class, other);
+	}
+
+	@Test
+	public void compiledPlansMatchStreams() {
+		List<Integer> values = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+		CompiledPipeline<Integer, String> plan = Pipeline.<Integer>start()
+				.filter(i -> i % 3 == 0)
+				.map(i -> i * 7)
+				.filter(i -> i % 2 == 1)
+				.map(String::valueOf)
+				.compile();
+		assertEquals(values.stream().filter(i -> i % 3 == 0).map(i -> i * 7).filter(i -> i % 2 == 1)
+				.map(String::valueOf).collect(Collectors.toList()), plan.toList(values));
+	}
+
+	private static FusedKernels.Kernel filterMap(int bound) {
+		return FusedKernels.create(Arrays.asList(
+				new Stage((Predicate<Integer>) i -> i < bound, null),
+				new Stage(null, (Function<Integer, String>) String::valueOf)));
+	}
+}